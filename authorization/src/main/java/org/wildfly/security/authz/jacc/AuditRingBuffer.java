@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>A bounded, lock-free queue of audit events with many producers and a single consumer.
+ *
+ * <p>Each slot carries a sequence number telling whether it is free for the producer claiming position {@code n} (the
+ * sequence is {@code n}) or holds the element published at position {@code n} (the sequence is {@code n + 1}). A producer
+ * claims a position with a single compare and set and never waits for the consumer: when the buffer is full the element is
+ * rejected.
+ */
+final class AuditRingBuffer {
+
+    private final int mask;
+    private final AtomicReferenceArray<AuthorizationAuditEvent> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * Create a new instance.
+     *
+     * @param capacity the capacity of the buffer, which must be a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element to the buffer. This method can be called by any thread.
+     *
+     * @param element the element to add
+     * @return {@code true} if the element was added, {@code false} if the buffer is full
+     */
+    boolean offer(AuthorizationAuditEvent element) {
+        for (;;) {
+            long position = this.tail.get();
+            int index = (int) position & this.mask;
+            long sequence = this.sequences.get(index);
+
+            if (sequence == position) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements.lazySet(index, element);
+                    this.sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                // the consumer has not released the slot yet
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element of the buffer. This method must only be called by the consumer thread.
+     *
+     * @return the oldest element, or {@code null} if the buffer is empty or the oldest element is not published yet
+     */
+    AuthorizationAuditEvent poll() {
+        long position = this.head;
+        int index = (int) position & this.mask;
+
+        if (this.sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        AuthorizationAuditEvent element = this.elements.get(index);
+
+        this.elements.lazySet(index, null);
+        this.sequences.lazySet(index, position + this.mask + 1);
+        this.head = position + 1;
+
+        return element;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+
+/**
+ * An authorization decision taken by a {@link JaccDelegatingPolicy} for a JACC permission, as written to an
+ * {@link AuthorizationAuditSink}.
+ */
+public final class AuthorizationAuditEvent {
+
+    private final long timestamp;
+    private final String contextId;
+    private final String identityName;
+    private final Permission permission;
+    private final boolean granted;
+
+    AuthorizationAuditEvent(long timestamp, String contextId, String identityName, Permission permission, boolean granted) {
+        this.timestamp = timestamp;
+        this.contextId = contextId;
+        this.identityName = identityName;
+        this.permission = permission;
+        this.granted = granted;
+    }
+
+    /**
+     * Returns the time of the decision, in milliseconds since the epoch.
+     *
+     * @return the time of the decision
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the identifier of the policy context the permission was checked against.
+     *
+     * @return the policy context identifier
+     */
+    public String getContextId() {
+        return this.contextId;
+    }
+
+    /**
+     * Returns the name of the security identity associated with the check.
+     *
+     * @return the name of the security identity, or {@code null} if no identity was associated with the check
+     */
+    public String getIdentityName() {
+        return this.identityName;
+    }
+
+    /**
+     * Returns the permission that was checked.
+     *
+     * @return the permission
+     */
+    public Permission getPermission() {
+        return this.permission;
+    }
+
+    /**
+     * Returns whether the permission was granted.
+     *
+     * @return {@code true} if the permission was granted, {@code false} if it was denied
+     */
+    public boolean isGranted() {
+        return this.granted;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorizationAuditEvent{timestamp=" + this.timestamp + ", contextId=" + this.contextId + ", identityName="
+                + this.identityName + ", permission=" + this.permission + ", granted=" + this.granted + "}";
+    }
+}
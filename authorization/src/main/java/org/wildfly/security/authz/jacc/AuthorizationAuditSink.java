@@ -0,0 +1,40 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.util.List;
+
+/**
+ * <p>The destination of the authorization decisions audited by an {@link AuthorizationAuditor}.
+ *
+ * <p>Events are written in batches by the single background thread of the auditor, never by the threads checking
+ * permissions, so an implementation may block on I/O without affecting the latency of authorization. An implementation does
+ * not need to be thread safe.
+ */
+@FunctionalInterface
+public interface AuthorizationAuditSink {
+
+    /**
+     * Writes a batch of audit events, in the order the decisions were taken. The list is only valid during this call.
+     *
+     * @param events the events to write (not {@code null} nor empty)
+     * @throws Exception if the events could not be written, in which case they are counted as dropped
+     */
+    void write(List<AuthorizationAuditEvent> events) throws Exception;
+}
@@ -0,0 +1,297 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static org.wildfly.security.authz.jacc.ElytronMessages.log;
+import static org.wildfly.security.authz.jacc.SecurityActions.doPrivileged;
+
+import java.security.Permission;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.wildfly.common.Assert;
+import org.wildfly.security.auth.server.SecurityIdentity;
+
+/**
+ * <p>Audits the authorization decisions taken by a {@link JaccDelegatingPolicy}, see
+ * {@link JaccDelegatingPolicy#setAuthorizationAuditor(AuthorizationAuditor)}.
+ *
+ * <p>The threads checking permissions only sample the decision and add an event to a bounded, lock-free ring buffer, so the
+ * cost of auditing a check is bounded and independent of the {@link AuthorizationAuditSink}. A background thread drains the
+ * buffer and writes the events to the sink in batches. When the buffer is full, events are dropped rather than slowing down
+ * authorization, and counted by {@link #getDroppedCount()}.
+ */
+public final class AuthorizationAuditor implements AutoCloseable {
+
+    /**
+     * Creates the background threads with the permissions of this class only, and without the context class loader of the
+     * thread building the auditor, so that they do not retain the deployment that happened to build it.
+     */
+    private static final ThreadFactory THREAD_FACTORY = task -> doPrivileged((PrivilegedAction<Thread>) () -> {
+        Thread thread = new Thread(task, "JACC authorization audit");
+
+        thread.setDaemon(true);
+        thread.setContextClassLoader(null);
+
+        return thread;
+    });
+
+    private final AuthorizationAuditSink sink;
+    private final double deniedSamplingRate;
+    private final double grantedSamplingRate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final AuditRingBuffer buffer;
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder activeProducers = new LongAdder(); // threads between their check of closed and their offer
+    private final Thread drainer;
+    private volatile boolean closed;
+
+    private AuthorizationAuditor(Builder builder) {
+        this.sink = builder.sink;
+        this.deniedSamplingRate = builder.deniedSamplingRate;
+        this.grantedSamplingRate = builder.grantedSamplingRate;
+        this.batchSize = builder.batchSize;
+        this.flushIntervalNanos = builder.flushIntervalNanos;
+        this.buffer = new AuditRingBuffer(builder.bufferSize);
+        this.drainer = THREAD_FACTORY.newThread(this::drain);
+        this.drainer.start();
+    }
+
+    /**
+     * Construct a new builder of auditors.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the number of events that were sampled but not written, because the buffer was full, the sink failed to write
+     * them or the auditor was closed.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    /**
+     * Returns the number of events written to the sink.
+     *
+     * @return the number of written events
+     */
+    public long getWrittenCount() {
+        return this.writtenCount.sum();
+    }
+
+    /**
+     * Stops the background thread once the events already buffered have been written to the sink. Events sampled after this
+     * method is called are dropped.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.drainer);
+
+        try {
+            this.drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void audit(String contextId, SecurityIdentity identity, Permission permission, boolean granted) {
+        double samplingRate = granted ? this.grantedSamplingRate : this.deniedSamplingRate;
+
+        if (samplingRate <= 0 || samplingRate < 1 && ThreadLocalRandom.current().nextDouble() >= samplingRate) {
+            return;
+        }
+
+        // the background thread only stops once no thread is between its check of closed and its offer, so that every event
+        // offered is either written or counted as dropped
+        this.activeProducers.increment();
+
+        try {
+            if (this.closed) {
+                this.droppedCount.increment();
+                return;
+            }
+
+            String identityName = identity == null ? null : identity.getPrincipal().getName();
+
+            if (!this.buffer.offer(new AuthorizationAuditEvent(System.currentTimeMillis(), contextId, identityName, permission, granted))) {
+                this.droppedCount.increment();
+            }
+        } finally {
+            this.activeProducers.decrement();
+        }
+    }
+
+    private void drain() {
+        List<AuthorizationAuditEvent> batch = new ArrayList<>(this.batchSize);
+
+        for (;;) {
+            // read before draining, so that the events added before close are written
+            boolean closed = this.closed;
+            // once closed, no event can be offered anymore when no thread is about to offer one
+            boolean quiescent = closed && this.activeProducers.sum() == 0;
+            AuthorizationAuditEvent event;
+
+            while (batch.size() < this.batchSize && (event = this.buffer.poll()) != null) {
+                batch.add(event);
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+            } else if (quiescent) {
+                return;
+            } else if (closed) {
+                // a thread that checked closed before it was set is about to offer its event
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, this.flushIntervalNanos);
+            }
+        }
+    }
+
+    private void write(List<AuthorizationAuditEvent> batch) {
+        try {
+            this.sink.write(batch);
+            this.writtenCount.add(batch.size());
+        } catch (Throwable cause) {
+            log.authzFailedToWriteAuditEvents(batch.size(), cause);
+            this.droppedCount.add(batch.size());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * A builder of {@link AuthorizationAuditor}.
+     */
+    public static final class Builder {
+
+        private AuthorizationAuditSink sink;
+        private double deniedSamplingRate = 1;
+        private double grantedSamplingRate;
+        private int bufferSize = 8192;
+        private int batchSize = 256;
+        private long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+        Builder() {
+        }
+
+        /**
+         * Set the sink the audit events are written to.
+         *
+         * @param sink the sink (must not be {@code null})
+         * @return this builder
+         */
+        public Builder setSink(AuthorizationAuditSink sink) {
+            this.sink = Assert.checkNotNullParam("sink", sink);
+            return this;
+        }
+
+        /**
+         * Set the fraction of denied permissions that are audited, every denial being audited by default.
+         *
+         * @param deniedSamplingRate the fraction of denials audited, between {@code 0} and {@code 1}
+         * @return this builder
+         */
+        public Builder setDeniedSamplingRate(double deniedSamplingRate) {
+            this.deniedSamplingRate = checkSamplingRate("deniedSamplingRate", deniedSamplingRate);
+            return this;
+        }
+
+        /**
+         * Set the fraction of granted permissions that are audited, no grant being audited by default.
+         *
+         * @param grantedSamplingRate the fraction of grants audited, between {@code 0} and {@code 1}
+         * @return this builder
+         */
+        public Builder setGrantedSamplingRate(double grantedSamplingRate) {
+            this.grantedSamplingRate = checkSamplingRate("grantedSamplingRate", grantedSamplingRate);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of events waiting to be written, above which events are dropped. Defaults to {@code 8192}.
+         *
+         * @param bufferSize the size of the buffer, which must be a power of two
+         * @return this builder
+         */
+        public Builder setBufferSize(int bufferSize) {
+            Assert.checkMinimumParameter("bufferSize", 1, bufferSize);
+
+            if (Integer.bitCount(bufferSize) != 1) {
+                throw log.authzAuditBufferSizeNotPowerOfTwo(bufferSize);
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of events written to the sink at once. Defaults to {@code 256}.
+         *
+         * @param batchSize the maximum size of a batch
+         * @return this builder
+         */
+        public Builder setBatchSize(int batchSize) {
+            this.batchSize = Assert.checkMinimumParameter("batchSize", 1, batchSize);
+            return this;
+        }
+
+        /**
+         * Set the time the background thread waits for new events once the buffer is empty. Defaults to 100 milliseconds.
+         *
+         * @param flushInterval the time to wait
+         * @param unit the unit of {@code flushInterval}
+         * @return this builder
+         */
+        public Builder setFlushInterval(long flushInterval, TimeUnit unit) {
+            Assert.checkMinimumParameter("flushInterval", 1, flushInterval);
+            this.flushIntervalNanos = Assert.checkNotNullParam("unit", unit).toNanos(flushInterval);
+            return this;
+        }
+
+        /**
+         * Build the auditor and start its background thread.
+         *
+         * @return the auditor
+         */
+        public AuthorizationAuditor build() {
+            Assert.checkNotNullParam("sink", this.sink);
+            return new AuthorizationAuditor(this);
+        }
+
+        private static double checkSamplingRate(String name, double samplingRate) {
+            return Assert.checkMaximumParameter(name, 1.0, Assert.checkMinimumParameter(name, 0.0, samplingRate));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>The explanation of an authorization decision, as returned by {@link JaccDelegatingPolicy#explain(java.security.ProtectionDomain, Permission)}.
+ *
+ * <p>The explanation tells which {@link Stage stage} of the policy took the decision and, when the permission is granted by
+ * roles, which roles of the caller grant it.
+ */
+public final class AuthorizationExplanation {
+
+    /**
+     * The stages of a policy, in the order they are evaluated. The first stage implying the permission takes the decision.
+     */
+    public enum Stage {
+
+        /**
+         * The permission is denied because it is excluded by the policy context.
+         */
+        EXCLUDED,
+
+        /**
+         * The permission is granted because it is unchecked by the policy context.
+         */
+        UNCHECKED,
+
+        /**
+         * The permission is granted to some of the roles of the caller by the policy context.
+         */
+        ROLE,
+
+        /**
+         * The permission is granted to the current security identity by the permission mapper of its security domain.
+         */
+        IDENTITY,
+
+        /**
+         * The permission is granted or denied by the delegate policy, either because it is not a JACC permission, because no
+         * other stage implies it or because the policy context could not be evaluated.
+         */
+        DELEGATE
+    }
+
+    private final String contextId;
+    private final String identityName;
+    private final Permission permission;
+    private final Stage stage;
+    private final boolean granted;
+    private final Set<String> callerRoles;
+    private final Set<String> grantingRoles;
+    private final Exception failure;
+
+    AuthorizationExplanation(String contextId, String identityName, Permission permission, Stage stage, boolean granted,
+            Set<String> callerRoles, Set<String> grantingRoles, Exception failure) {
+        this.contextId = contextId;
+        this.identityName = identityName;
+        this.permission = permission;
+        this.stage = stage;
+        this.granted = granted;
+        this.callerRoles = Collections.unmodifiableSet(new LinkedHashSet<>(callerRoles));
+        this.grantingRoles = Collections.unmodifiableSet(new LinkedHashSet<>(grantingRoles));
+        this.failure = failure;
+    }
+
+    /**
+     * Returns the identifier of the policy context the permission was checked against.
+     *
+     * @return the policy context identifier, or {@code null} if the permission was not checked against a policy context
+     */
+    public String getContextId() {
+        return this.contextId;
+    }
+
+    /**
+     * Returns the name of the security identity associated with the check.
+     *
+     * @return the name of the security identity, or {@code null} if no identity was associated with the check
+     */
+    public String getIdentityName() {
+        return this.identityName;
+    }
+
+    /**
+     * Returns the permission that was checked.
+     *
+     * @return the permission
+     */
+    public Permission getPermission() {
+        return this.permission;
+    }
+
+    /**
+     * Returns the stage of the policy that took the decision.
+     *
+     * @return the deciding stage
+     */
+    public Stage getStage() {
+        return this.stage;
+    }
+
+    /**
+     * Returns whether the permission was granted.
+     *
+     * @return {@code true} if the permission was granted, {@code false} if it was denied
+     */
+    public boolean isGranted() {
+        return this.granted;
+    }
+
+    /**
+     * Returns the roles of the caller known to the policy context, obtained from the principals of the protection domain
+     * and the roles of the current security identity. Roles unknown to the policy context can not grant any permission and
+     * are left out.
+     *
+     * @return the unmodifiable roles of the caller, empty if the permission was not checked against a policy context
+     */
+    public Set<String> getCallerRoles() {
+        return this.callerRoles;
+    }
+
+    /**
+     * Returns the roles of the caller the permission is granted to.
+     *
+     * @return the unmodifiable granting roles, empty unless the stage is {@link Stage#ROLE}
+     */
+    public Set<String> getGrantingRoles() {
+        return this.grantingRoles;
+    }
+
+    /**
+     * Returns the failure that prevented the policy context from being evaluated, in which case the decision was left to
+     * the delegate policy.
+     *
+     * @return the failure, or {@code null} if the policy context was evaluated
+     */
+    public Exception getFailure() {
+        return this.failure;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorizationExplanation{contextId=" + this.contextId + ", identityName=" + this.identityName + ", permission="
+                + this.permission + ", stage=" + this.stage + ", granted=" + this.granted + ", callerRoles=" + this.callerRoles
+                + ", grantingRoles=" + this.grantingRoles + ", failure=" + this.failure + "}";
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The outcomes and latencies of the checks of JACC permissions performed by a {@link JaccDelegatingPolicy}, per policy
+ * context.
+ *
+ * <p>Every counter is a {@link LongAdder}, so that threads checking permissions of the same policy context concurrently
+ * update different cells instead of contending on a single value. Latencies are recorded in a histogram whose buckets are
+ * powers of two of nanoseconds, so that recording a latency only takes a bit count.
+ *
+ * <p>The statistics of a policy context are kept while the policy context is reconfigured, and dropped by {@link #prune()}
+ * once it is deleted.
+ */
+final class AuthorizationMetrics {
+
+    /**
+     * The number of buckets of the latency histograms, the last bucket holding every latency of 2<sup>38</sup> nanoseconds
+     * or more.
+     */
+    static final int LATENCY_BUCKET_COUNT = 40;
+
+    /**
+     * The outcome of a check, naming the permissions that took the decision.
+     */
+    enum Outcome {
+        EXCLUDED(false),
+        UNCHECKED(true),
+        ROLE(true),
+        IDENTITY(true),
+        DELEGATE_GRANTED(true),
+        DELEGATE_DENIED(false);
+
+        private final boolean granted;
+
+        Outcome(boolean granted) {
+            this.granted = granted;
+        }
+
+        boolean isGranted() {
+            return this.granted;
+        }
+    }
+
+    private final Map<String, ContextMetrics> contextMetrics = new ConcurrentHashMap<>();
+
+    ContextMetrics get(String contextId) {
+        ContextMetrics metrics = this.contextMetrics.get(contextId);
+
+        if (metrics == null) {
+            metrics = this.contextMetrics.computeIfAbsent(contextId, ContextMetrics::new);
+        }
+
+        return metrics;
+    }
+
+    PolicyContextStatistics getStatistics(String contextId) {
+        ContextMetrics metrics = this.contextMetrics.get(contextId);
+        return metrics == null ? null : metrics.getStatistics();
+    }
+
+    List<PolicyContextStatistics> getStatistics() {
+        List<PolicyContextStatistics> statistics = new ArrayList<>(this.contextMetrics.size());
+
+        for (ContextMetrics metrics : this.contextMetrics.values()) {
+            statistics.add(metrics.getStatistics());
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Drops the statistics of the policy contexts that were deleted.
+     */
+    void prune() {
+        this.contextMetrics.keySet().removeIf(ElytronPolicyConfigurationFactory::isDeleted);
+    }
+
+    void reset() {
+        this.contextMetrics.clear();
+    }
+
+    static final class ContextMetrics {
+
+        private final String contextId;
+        private final LongAdder[] outcomes = newCounters(Outcome.values().length);
+        private final LongAdder[] latencies = newCounters(LATENCY_BUCKET_COUNT);
+        private final LongAdder totalLatency = new LongAdder();
+
+        private ContextMetrics(String contextId) {
+            this.contextId = contextId;
+        }
+
+        String getContextId() {
+            return this.contextId;
+        }
+
+        /**
+         * Records the outcome of a check.
+         *
+         * @param outcome the outcome of the check
+         * @param startTime the value of {@link System#nanoTime()} when the check started
+         */
+        void record(Outcome outcome, long startTime) {
+            long latency = Math.max(0, System.nanoTime() - startTime);
+
+            this.outcomes[outcome.ordinal()].increment();
+            this.latencies[Math.min(64 - Long.numberOfLeadingZeros(latency), LATENCY_BUCKET_COUNT - 1)].increment();
+            this.totalLatency.add(latency);
+        }
+
+        private PolicyContextStatistics getStatistics() {
+            long[] outcomes = sum(this.outcomes);
+            return new PolicyContextStatistics(this.contextId, outcomes[Outcome.EXCLUDED.ordinal()], outcomes[Outcome.UNCHECKED.ordinal()],
+                    outcomes[Outcome.ROLE.ordinal()], outcomes[Outcome.IDENTITY.ordinal()], outcomes[Outcome.DELEGATE_GRANTED.ordinal()],
+                    outcomes[Outcome.DELEGATE_DENIED.ordinal()], sum(this.latencies), this.totalLatency.sum());
+        }
+
+        private static LongAdder[] newCounters(int count) {
+            LongAdder[] counters = new LongAdder[count];
+
+            for (int i = 0; i < count; i++) {
+                counters[i] = new LongAdder();
+            }
+
+            return counters;
+        }
+
+        private static long[] sum(LongAdder[] counters) {
+            long[] sums = new long[counters.length];
+
+            for (int i = 0; i < counters.length; i++) {
+                sums[i] = counters[i].sum();
+            }
+
+            return sums;
+        }
+    }
+}
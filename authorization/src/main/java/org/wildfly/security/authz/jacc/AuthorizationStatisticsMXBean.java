@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.util.List;
+
+/**
+ * The management interface exposing the authorization statistics recorded by a {@link JaccDelegatingPolicy}, see
+ * {@link JaccDelegatingPolicy#registerStatisticsMBean()}.
+ */
+public interface AuthorizationStatisticsMXBean {
+
+    /**
+     * The name of the platform MBean exposing the authorization statistics.
+     */
+    String OBJECT_NAME = "org.wildfly.security.jacc:type=AuthorizationStatistics";
+
+    /**
+     * Returns the statistics of every policy context checked since the statistics were last reset.
+     *
+     * @return the statistics of each policy context
+     */
+    List<PolicyContextStatistics> getPolicyContextStatistics();
+
+    /**
+     * Returns the statistics of the given policy context.
+     *
+     * @param contextId the policy context identifier
+     * @return the statistics of the policy context, or {@code null} if it was not checked since the statistics were last reset
+     */
+    PolicyContextStatistics getStatistics(String contextId);
+
+    /**
+     * Discards the statistics of every policy context.
+     */
+    void resetStatistics();
+}
@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>A {@link PermissionCollection} holding the permissions of a policy configuration in a compact form.
+ *
+ * <p>JACC permissions are {@link PermissionInterner interned} and held in an array, in the order they were added, along with
+ * an open addressing table of their indexes to skip duplicates. This takes a fraction of the memory of a {@link Permissions}
+ * collection, which holds a hash map entry per permission. Checks against this collection evaluate each permission in turn,
+ * so it is meant for storage: checks on the authorization path are evaluated by a {@link CompiledPolicy}.
+ *
+ * <p>Any other permission is held by a {@link Permissions} collection, as some permission types, such as
+ * {@link java.io.FilePermission}, imply permissions only by combining several entries.
+ */
+final class CompactPermissions extends PermissionCollection {
+
+    private static final long serialVersionUID = -2416446447573637452L;
+
+    private static final Permission[] NO_PERMISSIONS = new Permission[0];
+
+    private Permission[] permissions = NO_PERMISSIONS;
+    private int[] table = new int[0]; // index + 1 of each permission in permissions, 0 for a free slot
+    private int size;
+    private Permissions otherPermissions;
+
+    @Override
+    public synchronized void add(Permission permission) {
+        if (isReadOnly()) {
+            throw new SecurityException("attempt to add a Permission to a readonly PermissionCollection");
+        }
+
+        if (!PermissionInterner.isInternable(permission)) {
+            if (this.otherPermissions == null) {
+                this.otherPermissions = new Permissions();
+            }
+
+            this.otherPermissions.add(permission);
+            return;
+        }
+
+        if (indexOf(permission) >= 0) {
+            return;
+        }
+
+        if (this.size == this.permissions.length) {
+            this.permissions = Arrays.copyOf(this.permissions, Math.max(4, this.size + (this.size >> 1)));
+        }
+
+        if ((this.size + 1) * 2 > this.table.length) {
+            rehash(Math.max(8, this.table.length * 2));
+        }
+
+        this.permissions[this.size] = PermissionInterner.intern(permission);
+        insert(this.table, permission.hashCode(), this.size);
+        this.size++;
+    }
+
+    @Override
+    public synchronized boolean implies(Permission permission) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.permissions[i].implies(permission)) {
+                return true;
+            }
+        }
+
+        return this.otherPermissions != null && this.otherPermissions.implies(permission);
+    }
+
+    @Override
+    public synchronized Enumeration<Permission> elements() {
+        // permissions are never removed and the array is replaced when growing, so the first size elements never change
+        Permission[] permissions = this.permissions;
+        int size = this.size;
+        Enumeration<Permission> otherElements = this.otherPermissions == null ? Collections.emptyEnumeration() : this.otherPermissions.elements();
+
+        return new Enumeration<Permission>() {
+
+            private int next;
+
+            @Override
+            public boolean hasMoreElements() {
+                return this.next < size || otherElements.hasMoreElements();
+            }
+
+            @Override
+            public Permission nextElement() {
+                if (this.next < size) {
+                    return permissions[this.next++];
+                }
+
+                if (!otherElements.hasMoreElements()) {
+                    throw new NoSuchElementException();
+                }
+
+                return otherElements.nextElement();
+            }
+        };
+    }
+
+    private int indexOf(Permission permission) {
+        int[] table = this.table;
+
+        if (table.length == 0) {
+            return -1;
+        }
+
+        int mask = table.length - 1;
+
+        for (int slot = spread(permission.hashCode()) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+
+            if (this.permissions[index].equals(permission)) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        int[] table = new int[capacity];
+
+        for (int i = 0; i < this.size; i++) {
+            insert(table, this.permissions[i].hashCode(), i);
+        }
+
+        this.table = table;
+    }
+
+    private static void insert(int[] table, int hash, int index) {
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = index + 1;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ hash >>> 16;
+    }
+}
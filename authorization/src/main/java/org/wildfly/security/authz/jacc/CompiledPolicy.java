@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+
+/**
+ * <p>An immutable snapshot of the permissions held by an {@link ElytronPolicyConfiguration}.
+ *
+ * <p>A snapshot is built when a policy configuration is committed and is published through a single volatile reference, so
+ * that {@link JaccDelegatingPolicy} can evaluate permissions without taking any lock. Changes made to the policy configuration
+ * once it is back in the <i>open</i> state are not visible until the next commit.
+ *
+ * <p>The roles of the policy context are interned into a {@link RoleTable} and each permission granted to roles carries the
+ * mask of these roles, so that role permissions are checked against the mask of the roles of the caller. Linked policy
+ * contexts are compiled against the same role table, see {@link LinkedPolicyState}.
+ */
+final class CompiledPolicy {
+
+    private final String contextId;
+    private final PermissionIndex excludedPermissions;
+    private final PermissionIndex uncheckedPermissions;
+    private final RoleTable roleTable;
+    private final PermissionIndex rolePermissions;
+
+    private CompiledPolicy(String contextId, PermissionIndex excludedPermissions, PermissionIndex uncheckedPermissions,
+            RoleTable roleTable, PermissionIndex rolePermissions) {
+        this.contextId = contextId;
+        this.excludedPermissions = excludedPermissions;
+        this.uncheckedPermissions = uncheckedPermissions;
+        this.roleTable = roleTable;
+        this.rolePermissions = rolePermissions;
+    }
+
+    /**
+     * Create a snapshot from the given permissions. The caller must prevent concurrent modifications of the given collections
+     * while this method runs.
+     *
+     * @param contextId the policy context identifier
+     * @param excludedPermissions the excluded permissions
+     * @param uncheckedPermissions the unchecked permissions
+     * @param rolePermissions the permissions granted to each role
+     * @param roleTable the table of the roles of the policy context, which must hold every role of {@code rolePermissions}
+     * @param interner the function returning the instance to hold for each permission
+     * @return the compiled policy
+     */
+    static CompiledPolicy compile(String contextId, PermissionCollection excludedPermissions, PermissionCollection uncheckedPermissions,
+            Map<String, PermissionCollection> rolePermissions, RoleTable roleTable, UnaryOperator<Permission> interner) {
+        return compile(contextId, excludedPermissions, uncheckedPermissions, rolePermissions, roleTable, interner, null);
+    }
+
+    /**
+     * Create a snapshot from the given permissions, building the excluded, unchecked and role indexes, and the index of each
+     * type of permission within them, in parallel on the given pool. The snapshot takes the same decisions whether it is
+     * built in parallel or not. The caller must prevent concurrent modifications of the given collections while this method
+     * runs.
+     *
+     * @param contextId the policy context identifier
+     * @param excludedPermissions the excluded permissions
+     * @param uncheckedPermissions the unchecked permissions
+     * @param rolePermissions the permissions granted to each role
+     * @param roleTable the table of the roles of the policy context, which must hold every role of {@code rolePermissions}
+     * @param interner the thread safe function returning the instance to hold for each permission
+     * @param pool the pool to build the indexes on, or {@code null} to build them in the calling thread
+     * @return the compiled policy
+     */
+    static CompiledPolicy compile(String contextId, PermissionCollection excludedPermissions, PermissionCollection uncheckedPermissions,
+            Map<String, PermissionCollection> rolePermissions, RoleTable roleTable, UnaryOperator<Permission> interner, ForkJoinPool pool) {
+        if (pool == null) {
+            return new CompiledPolicy(contextId, PermissionIndex.of(excludedPermissions, interner), PermissionIndex.of(uncheckedPermissions, interner),
+                    roleTable, PermissionIndex.of(rolePermissions, roleTable, interner));
+        }
+
+        ForkJoinTask<PermissionIndex> excludedIndex = pool.submit(() -> PermissionIndex.of(excludedPermissions, interner, pool));
+        ForkJoinTask<PermissionIndex> uncheckedIndex = pool.submit(() -> PermissionIndex.of(uncheckedPermissions, interner, pool));
+        // the role permissions are usually the largest, the calling thread indexes them meanwhile
+        PermissionIndex roleIndex = PermissionIndex.of(rolePermissions, roleTable, interner, pool);
+
+        return new CompiledPolicy(contextId, excludedIndex.join(), uncheckedIndex.join(), roleTable, roleIndex);
+    }
+
+    String getContextId() {
+        return this.contextId;
+    }
+
+    boolean impliesExcluded(Permission permission) {
+        return this.excludedPermissions.implies(permission);
+    }
+
+    boolean impliesUnchecked(Permission permission) {
+        return this.uncheckedPermissions.implies(permission);
+    }
+
+    RoleTable getRoleTable() {
+        return this.roleTable;
+    }
+
+    /**
+     * Returns whether the given permission is granted to any of the given roles.
+     *
+     * @param roles the mask of the roles of the caller, created by the {@link #getRoleTable() role table} of this snapshot
+     * @param permission the permission to check
+     * @return {@code true} if the permission is granted to one of the roles
+     */
+    boolean impliesRole(long[] roles, Permission permission) {
+        return !RoleTable.isEmpty(roles) && this.rolePermissions.implies(permission, roles);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A bounded cache of the decisions taken by a {@link CompiledPolicy} for a given {@link RoleSet} and permission.
+ *
+ * <p>Decisions are grouped per policy context and remember the snapshot they were computed from. Committing, deleting or
+ * linking a policy configuration always replaces its snapshot, so any decision computed from a previous snapshot is discarded
+ * the next time the policy context is checked.
+ *
+ * <p>Decisions are first keyed by role set and then by permission, so that looking up a decision does not allocate any
+ * composite key. Once a policy context holds the maximum number of decisions, each new decision evicts the oldest one, so
+ * that a working set larger than the cache keeps most of its decisions cached.
+ *
+ * <p>The decisions of a policy context are dropped by {@link #prune()} once the policy context is no longer in service, so
+ * that the cache does not retain the snapshots of deleted policy contexts.
+ */
+final class DecisionCache {
+
+    /**
+     * The default maximum number of decisions kept for a single policy context.
+     */
+    static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    /**
+     * The outcome of evaluating a permission against the excluded, unchecked and role permissions of a policy context.
+     */
+    enum Decision {
+        EXCLUDED,
+        UNCHECKED,
+        GRANTED_BY_ROLE,
+        NOT_DECIDED
+    }
+
+    private final int maximumSize;
+    private final Map<String, ContextDecisions> contextDecisions = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    DecisionCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    boolean isEnabled() {
+        return this.maximumSize > 0;
+    }
+
+    Decision get(CompiledPolicy compiledPolicy, RoleSet roles, Permission permission) {
+        ContextDecisions decisions = this.contextDecisions.get(compiledPolicy.getContextId());
+        Decision decision = null;
+
+        if (decisions != null && decisions.compiledPolicy == compiledPolicy) {
+            Map<Permission, Decision> roleDecisions = decisions.decisions.get(roles);
+
+            if (roleDecisions != null) {
+                decision = roleDecisions.get(permission);
+            }
+        }
+
+        if (decision == null) {
+            this.missCount.increment();
+        } else {
+            this.hitCount.increment();
+        }
+
+        return decision;
+    }
+
+    void put(CompiledPolicy compiledPolicy, RoleSet roles, Permission permission, Decision decision) {
+        ContextDecisions decisions = this.contextDecisions.get(compiledPolicy.getContextId());
+
+        if (decisions == null || decisions.compiledPolicy != compiledPolicy) {
+            // the policy context was committed again, any decision taken from the previous snapshot is stale
+            decisions = new ContextDecisions(compiledPolicy, this.maximumSize);
+            this.contextDecisions.put(compiledPolicy.getContextId(), decisions);
+        }
+
+        decisions.put(roles, permission, decision);
+    }
+
+    /**
+     * Drops the decisions of the policy contexts whose snapshot is no longer the one in service, because they were deleted,
+     * opened or committed again since.
+     */
+    void prune() {
+        this.contextDecisions.values().removeIf(decisions ->
+                ElytronPolicyConfigurationFactory.getCompiledPolicy(decisions.compiledPolicy.getContextId()) != decisions.compiledPolicy);
+    }
+
+    void invalidateAll() {
+        this.contextDecisions.clear();
+    }
+
+    /**
+     * Returns the number of policy contexts holding cached decisions.
+     *
+     * @return the number of policy contexts
+     */
+    int getContextCount() {
+        return this.contextDecisions.size();
+    }
+
+    long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    private static final class ContextDecisions {
+
+        private final CompiledPolicy compiledPolicy;
+        private final Map<RoleSet, Map<Permission, Decision>> decisions = new ConcurrentHashMap<>();
+        /**
+         * The keys of the cached decisions, in insertion order, used as a ring: the decision stored in a slot is evicted
+         * when the slot is reused.
+         */
+        private final AtomicReferenceArray<DecisionKey> keys;
+        private final AtomicLong insertionCount = new AtomicLong();
+
+        private ContextDecisions(CompiledPolicy compiledPolicy, int maximumSize) {
+            this.compiledPolicy = compiledPolicy;
+            this.keys = new AtomicReferenceArray<>(maximumSize);
+        }
+
+        private void put(RoleSet roles, Permission permission, Decision decision) {
+            if (this.decisions.computeIfAbsent(roles, key -> new ConcurrentHashMap<>()).putIfAbsent(permission, decision) != null) {
+                return;
+            }
+
+            int slot = (int) (this.insertionCount.getAndIncrement() % this.keys.length());
+            DecisionKey evicted = this.keys.getAndSet(slot, new DecisionKey(roles, permission));
+
+            if (evicted != null) {
+                Map<Permission, Decision> roleDecisions = this.decisions.get(evicted.roles);
+
+                if (roleDecisions != null) {
+                    roleDecisions.remove(evicted.permission);
+                    // a decision concurrently added to a map being removed is lost, which only costs a later miss
+                    this.decisions.computeIfPresent(evicted.roles, (key, value) -> value.isEmpty() ? null : value);
+                }
+            }
+        }
+    }
+
+    private static final class DecisionKey {
+
+        private final RoleSet roles;
+        private final Permission permission;
+
+        private DecisionKey(RoleSet roles, Permission permission) {
+            this.roles = roles;
+            this.permission = permission;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.net.SocketPermission;
+import java.security.Permission;
+import java.security.ProtectionDomain;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>A bounded cache of the permissions granted by the delegate policy of a {@link JaccDelegatingPolicy} to each protection
+ * domain.
+ *
+ * <p>Only grants are cached: a denial usually ends with a {@link SecurityException}, so it is far less frequent than a grant
+ * and not worth keeping. Domains are weakly keyed, see {@link WeakKeyCache}, so a check never locks, and the permissions of a
+ * domain are only allocated once a grant is cached for it. When the permissions granted to a domain reach the maximum size,
+ * the oldest one is evicted.
+ *
+ * <p>{@link SocketPermission} is never cached, as comparing two socket permissions may resolve host names.
+ */
+final class DelegateDecisionCache {
+
+    private final int maximumSize;
+    private final WeakKeyCache<ProtectionDomain, GrantedPermissions> grantedPermissions = WeakKeyCache.strongValues();
+
+    DelegateDecisionCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns whether the given check can be cached.
+     *
+     * @param domain the protection domain
+     * @param permission the permission
+     * @return {@code true} if the decision of the delegate policy can be cached
+     */
+    boolean isCacheable(ProtectionDomain domain, Permission permission) {
+        return this.maximumSize > 0 && domain != null && !(permission instanceof SocketPermission);
+    }
+
+    boolean isGranted(ProtectionDomain domain, Permission permission) {
+        GrantedPermissions grantedPermissions = this.grantedPermissions.get(domain);
+        return grantedPermissions != null && grantedPermissions.permissions.contains(permission);
+    }
+
+    void putGranted(ProtectionDomain domain, Permission permission) {
+        GrantedPermissions grantedPermissions = this.grantedPermissions.get(domain);
+
+        if (grantedPermissions == null) {
+            grantedPermissions = this.grantedPermissions.putIfAbsent(domain, new GrantedPermissions(this.maximumSize));
+        }
+
+        grantedPermissions.add(permission);
+    }
+
+    void invalidateAll() {
+        this.grantedPermissions.clear();
+    }
+
+    private static final class GrantedPermissions {
+
+        private final Set<Permission> permissions = ConcurrentHashMap.newKeySet();
+        /**
+         * The cached permissions, in insertion order, used as a ring: the permission stored in a slot is evicted when the slot
+         * is reused.
+         */
+        private final AtomicReferenceArray<Permission> ring;
+        private final AtomicLong insertionCount = new AtomicLong();
+
+        private GrantedPermissions(int maximumSize) {
+            this.ring = new AtomicReferenceArray<>(maximumSize);
+        }
+
+        private void add(Permission permission) {
+            if (!this.permissions.add(permission)) {
+                return;
+            }
+
+            int slot = (int) (this.insertionCount.getAndIncrement() % this.ring.length());
+            Permission evicted = this.ring.getAndSet(slot, permission);
+
+            if (evicted != null) {
+                this.permissions.remove(evicted);
+            }
+        }
+    }
+}
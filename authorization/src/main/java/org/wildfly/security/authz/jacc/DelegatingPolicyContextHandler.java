@@ -17,12 +17,6 @@
 package org.wildfly.security.authz.jacc;
 
 import static org.wildfly.common.Assert.checkNotNullParam;
-import static org.wildfly.security.authz.jacc.SecurityActions.doPrivileged;
-
-import java.security.PrivilegedAction;
-
-import org.wildfly.security.auth.server.SecurityDomain;
-import org.wildfly.security.auth.server.SecurityIdentity;
 
 import jakarta.security.jacc.PolicyContextException;
 import jakarta.security.jacc.PolicyContextHandler;
@@ -57,17 +51,14 @@ public class DelegatingPolicyContextHandler implements PolicyContextHandler {
 
     @Override
     public Object getContext(String key, Object data) throws PolicyContextException {
-        return getSecurityIdentity() != null ? preferred.getContext(key, data) : fallBack.getContext(key, data);
-    }
+        // the preferred handlers of Elytron reuse the identity resolved here
+        ResolvedIdentity.enter();
 
-    private static SecurityIdentity getSecurityIdentity() {
-        SecurityDomain securityDomain = doPrivileged((PrivilegedAction<SecurityDomain>) SecurityDomain::getCurrent);
-
-        if (securityDomain != null) {
-            return securityDomain.getCurrentSecurityIdentity();
+        try {
+            return ResolvedIdentity.get() != null ? preferred.getContext(key, data) : fallBack.getContext(key, data);
+        } finally {
+            ResolvedIdentity.exit();
         }
-
-        return null;
     }
 
 }
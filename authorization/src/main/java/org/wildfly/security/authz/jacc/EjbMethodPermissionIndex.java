@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An index of {@link jakarta.security.jacc.EJBMethodPermission} instances keyed by EJB name, method name and method
+ * interface.
+ *
+ * <p>The actions of an {@code EJBMethodPermission} take the form {@code methodName,methodInterface,methodParams} where an
+ * empty method name or method interface applies to any method or interface. Permissions using these wildcard forms are kept
+ * apart from the ones naming a method or an interface, so that checking a fully qualified method only evaluates the
+ * permissions of at most four buckets of the bean, whatever the number of beans and methods in the policy context. Each
+ * candidate is still verified with {@link Permission#implies(Permission)}.
+ */
+final class EjbMethodPermissionIndex {
+
+    private static final GrantedPermission[] NO_PERMISSIONS = new GrantedPermission[0];
+    private static final String ANY = "";
+
+    private final Map<String, Bean> beans;
+
+    private EjbMethodPermissionIndex(Map<String, Bean> beans) {
+        this.beans = beans;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    boolean implies(Permission permission, long[] roles) {
+        Bean bean = this.beans.get(permission.getName());
+
+        if (bean == null) {
+            return false;
+        }
+
+        String actions = permission.getActions();
+        String methodName = getMethodName(actions);
+        String methodInterface = getMethodInterface(actions);
+
+        if (ANY.equals(methodName)) {
+            // the check itself applies to every method of the bean
+            return GrantedPermission.impliesAny(bean.permissions, permission, roles);
+        }
+
+        return bean.implies(bean.methods.get(methodName), methodInterface, permission, roles)
+                || bean.implies(bean.anyMethod, methodInterface, permission, roles);
+    }
+
+    private static String getMethodName(String actions) {
+        if (actions == null) {
+            return ANY;
+        }
+
+        int end = actions.indexOf(',');
+
+        return end == -1 ? actions : actions.substring(0, end);
+    }
+
+    private static String getMethodInterface(String actions) {
+        int start = actions == null ? -1 : actions.indexOf(',');
+
+        if (start == -1) {
+            return ANY;
+        }
+
+        int end = actions.indexOf(',', start + 1);
+
+        return end == -1 ? actions.substring(start + 1) : actions.substring(start + 1, end);
+    }
+
+    static final class Builder {
+
+        private final Map<String, Map<String, Map<String, List<GrantedPermission>>>> beans = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        Builder add(GrantedPermission permission) {
+            String actions = permission.getPermission().getActions();
+
+            this.beans.computeIfAbsent(permission.getPermission().getName(), key -> new LinkedHashMap<>())
+                    .computeIfAbsent(getMethodName(actions), key -> new LinkedHashMap<>())
+                    .computeIfAbsent(getMethodInterface(actions), key -> new ArrayList<>())
+                    .add(permission);
+
+            return this;
+        }
+
+        EjbMethodPermissionIndex build() {
+            Map<String, Bean> beans = new HashMap<>();
+
+            for (Map.Entry<String, Map<String, Map<String, List<GrantedPermission>>>> entry : this.beans.entrySet()) {
+                beans.put(entry.getKey(), new Bean(entry.getValue()));
+            }
+
+            return new EjbMethodPermissionIndex(beans);
+        }
+    }
+
+    private static final class Bean {
+
+        private final GrantedPermission[] permissions;
+        private final Map<String, Method> methods = new HashMap<>();
+        private final Method anyMethod;
+
+        private Bean(Map<String, Map<String, List<GrantedPermission>>> methods) {
+            List<GrantedPermission> permissions = new ArrayList<>();
+
+            for (Map.Entry<String, Map<String, List<GrantedPermission>>> entry : methods.entrySet()) {
+                Method method = new Method(entry.getValue());
+
+                this.methods.put(entry.getKey(), method);
+                permissions.addAll(List.of(method.permissions));
+            }
+
+            this.permissions = permissions.toArray(NO_PERMISSIONS);
+            this.anyMethod = this.methods.get(ANY);
+        }
+
+        private boolean implies(Method method, String methodInterface, Permission permission, long[] roles) {
+            if (method == null) {
+                return false;
+            }
+
+            if (ANY.equals(methodInterface)) {
+                // the check itself applies to every interface of the method
+                return GrantedPermission.impliesAny(method.permissions, permission, roles);
+            }
+
+            return GrantedPermission.impliesAny(method.interfaces.get(methodInterface), permission, roles)
+                    || GrantedPermission.impliesAny(method.interfaces.get(ANY), permission, roles);
+        }
+    }
+
+    private static final class Method {
+
+        private final GrantedPermission[] permissions;
+        private final Map<String, GrantedPermission[]> interfaces = new HashMap<>();
+
+        private Method(Map<String, List<GrantedPermission>> interfaces) {
+            List<GrantedPermission> permissions = new ArrayList<>();
+
+            for (Map.Entry<String, List<GrantedPermission>> entry : interfaces.entrySet()) {
+                this.interfaces.put(entry.getKey(), entry.getValue().toArray(NO_PERMISSIONS));
+                permissions.addAll(entry.getValue());
+            }
+
+            this.permissions = permissions.toArray(NO_PERMISSIONS);
+        }
+    }
+}
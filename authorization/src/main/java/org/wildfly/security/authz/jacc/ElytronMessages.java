@@ -20,10 +20,15 @@ package org.wildfly.security.authz.jacc;
 
 import static org.jboss.logging.Logger.Level.DEBUG;
 import static org.jboss.logging.Logger.Level.ERROR;
+import static org.jboss.logging.Logger.Level.WARN;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.security.Permission;
 import java.security.ProtectionDomain;
 
+import javax.management.ObjectName;
+
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Logger;
 import org.jboss.logging.annotations.Cause;
@@ -44,7 +49,7 @@ import jakarta.security.jacc.PolicyContextException;
 @MessageLogger(projectCode = "ELY", length = 5)
 @ValidIdRanges({
     @ValidIdRange(min = 3018, max = 3018),
-    @ValidIdRange(min = 8500, max = 8508)
+    @ValidIdRange(min = 8500, max = 8517)
 })
 interface ElytronMessages extends BasicLogger {
 
@@ -85,4 +90,33 @@ interface ElytronMessages extends BasicLogger {
     @Message(id = 8508, value = "Could not obtain authorized identity.")
     void authzCouldNotObtainSecurityIdentity(@Cause Throwable cause);
 
+    @Message(id = 8509, value = "Policy snapshot [%s] is corrupted.")
+    IOException authzCorruptedPolicySnapshot(Path file);
+
+    @Message(id = 8510, value = "Permission [%s] cannot be reconstructed from its class name, name and actions.")
+    IllegalArgumentException authzPermissionNotPersistable(Permission permission);
+
+    @Message(id = 8511, value = "Could not write the policy snapshot of contextID [%s] to [%s].")
+    PolicyContextException authzUnableToWritePolicySnapshot(String contextID, Path file, @Cause Throwable cause);
+
+    @LogMessage(level = DEBUG)
+    @Message(id = 8512, value = "Ignoring the policy snapshot of contextID [%s] at [%s].")
+    void authzIgnoringPolicySnapshot(String contextID, Path file, @Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 8513, value = "Failed to write %d authorization audit events.")
+    void authzFailedToWriteAuditEvents(int count, @Cause Throwable cause);
+
+    @Message(id = 8514, value = "Authorization audit buffer size [%d] is not a power of two.")
+    IllegalArgumentException authzAuditBufferSizeNotPowerOfTwo(int bufferSize);
+
+    @Message(id = 8515, value = "Policy configuration with contextID [%s] was changed while being replaced.")
+    PolicyContextException authzPolicyConfigurationChangedDuringReplacement(String contextID);
+
+    @Message(id = 8516, value = "Permission class [%s] of a policy snapshot is not a JACC permission.")
+    IllegalArgumentException authzUnsupportedSnapshotPermission(String className);
+
+    @Message(id = 8517, value = "Authorization statistics of this policy are already registered as [%s].")
+    IllegalStateException authzStatisticsAlreadyRegistered(ObjectName objectName);
+
 }
@@ -20,21 +20,32 @@ package org.wildfly.security.authz.jacc;
 import static org.wildfly.common.Assert.checkNotNullParam;
 import static org.wildfly.security.authz.jacc.ElytronMessages.log;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.security.Permission;
 import java.security.PermissionCollection;
-import java.security.Permissions;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import jakarta.security.jacc.PolicyConfiguration;
 import jakarta.security.jacc.PolicyContextException;
 
 /**
- * {@link jakarta.security.jacc.PolicyConfiguration} implementation.
+ * <p>{@link jakarta.security.jacc.PolicyConfiguration} implementation.
+ *
+ * <p>Permissions added as a {@link PermissionCollection} are loaded under a single state check and lock acquisition, which
+ * is the preferred way to load large policies. Permissions are only compiled for evaluation on {@link #commit()}.
+ *
+ * <p>Permissions are held in {@link CompactPermissions} collections, which share a single instance of equal JACC permissions
+ * across roles and policy contexts.
+ *
+ * <p>A configuration created by {@link ElytronPolicyConfigurationFactory#getReplacementPolicyConfiguration(String)} is not
+ * registered until committed, and then takes the place of the configuration it replaces.
  *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  * @see org.wildfly.security.authz.jacc.ElytronPolicyConfigurationFactory
@@ -52,16 +63,33 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
 
     private final String contextId;
     private final Map<String, PermissionCollection> rolePermissions = Collections.synchronizedMap(new HashMap<>());
-    private State state = State.OPEN; // needs synchronization
-    private volatile Permissions uncheckedPermissions = new Permissions(); // atomic reference + synchronized inside
-    private volatile Permissions excludedPermissions = new Permissions(); // atomic reference + synchronized inside
+    private volatile State state = State.OPEN; // written under synchronized(this), read without locking
+    private volatile CompactPermissions uncheckedPermissions = new CompactPermissions(); // atomic reference + synchronized inside
+    private volatile CompactPermissions excludedPermissions = new CompactPermissions(); // atomic reference + synchronized inside
     private volatile Set<PolicyConfiguration> linkedPolicies = Collections.synchronizedSet(new LinkedHashSet<>()); // atomic reference
+    private volatile CompiledPolicy compiledPolicy; // atomic reference - only set while in service
+    private volatile LinkedPolicyState linkedPolicyState = new LinkedPolicyState(); // atomic reference - shared with linked policies
+
+    private ElytronPolicyConfiguration replaced; // only set until a replacement is committed, guarded by synchronized(this)
 
     ElytronPolicyConfiguration(String contextID) {
         checkNotNullParam("contextID", contextID);
         this.contextId = contextID;
     }
 
+    /**
+     * Create a configuration that replaces the given in service configuration when committed. The replacement keeps the links
+     * of the replaced configuration and is compiled against the same roles.
+     *
+     * @param replaced the configuration to replace
+     */
+    ElytronPolicyConfiguration(ElytronPolicyConfiguration replaced) {
+        this(replaced.contextId);
+        this.replaced = replaced;
+        this.linkedPolicies = replaced.linkedPolicies;
+        this.linkedPolicyState = replaced.linkedPolicyState;
+    }
+
     @Override
     public void addToExcludedPolicy(Permission permission) throws PolicyContextException {
         checkNotNullParam("permission", permission);
@@ -76,10 +104,9 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
     public void addToExcludedPolicy(PermissionCollection permissions) throws PolicyContextException {
         checkNotNullParam("permissions", permissions);
 
-        Enumeration<Permission> elements = permissions.elements();
-
-        while (elements.hasMoreElements()) {
-            addToExcludedPolicy(elements.nextElement());
+        synchronized (this) { // prevents state change while adding
+            checkIfInOpenState();
+            addAll(permissions, this.excludedPermissions);
         }
     }
 
@@ -90,7 +117,7 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
 
         synchronized (this) { // prevents state change while adding
             checkIfInOpenState();
-            this.rolePermissions.computeIfAbsent(roleName, s -> new Permissions()).add(permission);
+            this.rolePermissions.computeIfAbsent(roleName, s -> new CompactPermissions()).add(permission);
         }
     }
 
@@ -99,10 +126,12 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
         checkNotNullParam("roleName", roleName);
         checkNotNullParam("permissions", permissions);
 
-        Enumeration<Permission> elements = permissions.elements();
+        synchronized (this) { // prevents state change while adding
+            checkIfInOpenState();
 
-        while (elements.hasMoreElements()) {
-            addToRole(roleName, elements.nextElement());
+            if (permissions.elements().hasMoreElements()) {
+                addAll(permissions, this.rolePermissions.computeIfAbsent(roleName, s -> new CompactPermissions()));
+            }
         }
     }
 
@@ -120,32 +149,77 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
     public void addToUncheckedPolicy(PermissionCollection permissions) throws PolicyContextException {
         checkNotNullParam("permissions", permissions);
 
-        Enumeration<Permission> elements = permissions.elements();
-
-        while (elements.hasMoreElements()) {
-            addToUncheckedPolicy(elements.nextElement());
+        synchronized (this) { // prevents state change while adding
+            checkIfInOpenState();
+            addAll(permissions, this.uncheckedPermissions);
         }
     }
 
     @Override
     public void commit() throws PolicyContextException {
+        ElytronPolicyConfiguration replaced;
+
         synchronized (this) { // prevents concurrent state changes
             if (isDeleted()) {
                 throw log.authzInvalidStateForOperation(this.state.name());
             }
 
+            LinkedPolicyState linkedPolicyState = this.linkedPolicyState;
+            RoleTable roleTable = linkedPolicyState.getRoleTable(getLinkedRoleNames());
+
+            synchronized (this.rolePermissions) {
+                // the role permissions are locked by the calling thread, the pool threads only read them
+                this.compiledPolicy = CompiledPolicy.compile(this.contextId, this.excludedPermissions, this.uncheckedPermissions,
+                        this.rolePermissions, roleTable, PermissionInterner::intern, getCompilationPool());
+            }
+
             transitionTo(State.IN_SERVICE);
+
+            replaced = this.replaced;
+            this.replaced = null;
+        }
+
+        // the registry lock is taken before the lock of a configuration, so it must not be taken while holding this one
+        if (replaced != null) {
+            try {
+                ElytronPolicyConfigurationFactory.replacePolicyConfiguration(replaced, this);
+            } catch (PolicyContextException e) {
+                // never registered, the replacement is discarded as if deleted
+                delete();
+                throw e;
+            }
         }
     }
 
+    /**
+     * Retires this configuration once a replacement is registered in its place. Checks already evaluating the snapshot of
+     * this configuration complete against it.
+     *
+     * @param replacement the configuration registered in place of this one
+     */
+    void replaceWith(ElytronPolicyConfiguration replacement) throws PolicyContextException {
+        retire(replacement);
+    }
+
     @Override
     public void delete() throws PolicyContextException {
+        retire(null);
+    }
+
+    private void retire(ElytronPolicyConfiguration replacement) throws PolicyContextException {
         synchronized (this) { // prevents concurrent state changes
             transitionTo(State.DELETED);
-            this.uncheckedPermissions = new Permissions();
-            this.excludedPermissions = new Permissions();
+            this.uncheckedPermissions = new CompactPermissions();
+            this.excludedPermissions = new CompactPermissions();
             this.rolePermissions.clear();
-            this.linkedPolicies.remove(this);
+
+            Set<PolicyConfiguration> linkedPolicies = this.linkedPolicies;
+
+            synchronized (linkedPolicies) { // the replacement takes the place of this configuration in a single step
+                if (linkedPolicies.remove(this) && replacement != null) {
+                    linkedPolicies.add(replacement);
+                }
+            }
         }
     }
 
@@ -156,9 +230,7 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
 
     @Override
     public boolean inService() {
-        synchronized (this) {
-            return State.IN_SERVICE.equals(this.state);
-        }
+        return State.IN_SERVICE.equals(this.state); // volatile read - no synchronization needed
     }
 
     @Override
@@ -182,6 +254,8 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
             linkedPolicyConfiguration.linkConfiguration(this);
             // policies share the same set of linked policies, so we can remove policies from the set when they are deleted.
             this.linkedPolicies = linkedPolicyConfiguration.getLinkedPolicies();
+            // and they are compiled against the same roles
+            this.linkedPolicyState = linkedPolicyConfiguration.linkedPolicyState;
         }
     }
 
@@ -189,7 +263,7 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
     public void removeExcludedPolicy() throws PolicyContextException {
         synchronized (this) { // prevents concurrent state changes
             checkIfInOpenState();
-            this.excludedPermissions = new Permissions();
+            this.excludedPermissions = new CompactPermissions();
         }
     }
 
@@ -208,7 +282,7 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
     public void removeUncheckedPolicy() throws PolicyContextException {
         synchronized (this) { // prevents concurrent state changes
             checkIfInOpenState();
-            this.uncheckedPermissions = new Permissions();
+            this.uncheckedPermissions = new CompactPermissions();
         }
     }
 
@@ -231,9 +305,120 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
         return this.rolePermissions;
     }
 
+    /**
+     * Returns the snapshot of this configuration built by the last {@link #commit()}. The snapshot is only published while
+     * this configuration is in service, so a single read tells both whether the configuration is in service and what it grants.
+     *
+     * @return the compiled policy, or {@code null} if this configuration is not in service
+     */
+    CompiledPolicy getCompiledPolicy() {
+        return this.compiledPolicy; // volatile/atomic reference - no synchronization needed
+    }
+
+    /**
+     * Write the permissions of this configuration to a snapshot file. This configuration must be in service, so that the
+     * snapshot holds committed permissions.
+     *
+     * @param deploymentHash the hash identifying the deployment the permissions were translated from
+     * @param file the snapshot file
+     * @throws IOException if the snapshot could not be written
+     */
+    void writeSnapshot(String deploymentHash, Path file) throws IOException {
+        synchronized (this) { // prevents state change while writing
+            if (!inService()) {
+                throw log.authzPolicyConfigurationNotInService(this.contextId);
+            }
+
+            synchronized (this.rolePermissions) {
+                PolicySnapshot.write(file, this.contextId, deploymentHash, this.excludedPermissions, this.uncheckedPermissions,
+                        this.rolePermissions);
+            }
+        }
+    }
+
+    /**
+     * Returns the pool to compile this configuration on, if it holds at least as many permissions as the threshold set by
+     * {@link ElytronPolicyConfigurationFactory#setParallelCompilation(ForkJoinPool, int)}.
+     */
+    private ForkJoinPool getCompilationPool() {
+        ForkJoinPool pool = ElytronPolicyConfigurationFactory.getCompilationPool();
+
+        if (pool == null) {
+            return null;
+        }
+
+        int remaining = ElytronPolicyConfigurationFactory.getParallelCompilationThreshold();
+
+        remaining = countDown(this.excludedPermissions, remaining);
+        remaining = countDown(this.uncheckedPermissions, remaining);
+
+        for (PermissionCollection permissions : this.rolePermissions.values()) {
+            remaining = countDown(permissions, remaining);
+        }
+
+        return remaining <= 0 ? pool : null;
+    }
+
+    /**
+     * Counts the permissions of the given collection down from {@code remaining}, stopping at zero.
+     */
+    private static int countDown(PermissionCollection permissions, int remaining) {
+        Enumeration<Permission> elements = permissions.elements();
+
+        while (remaining > 0 && elements.hasMoreElements()) {
+            elements.nextElement();
+            remaining--;
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Returns the roles of this configuration and of the configurations linked to it. The role permissions of each
+     * configuration are locked in turn, never while holding the lock of another one.
+     */
+    private Set<String> getLinkedRoleNames() {
+        Set<String> roleNames = new LinkedHashSet<>();
+        Set<PolicyConfiguration> linkedPolicies = this.linkedPolicies;
+        PolicyConfiguration[] linkedPolicyArray;
+
+        synchronized (this.rolePermissions) {
+            roleNames.addAll(this.rolePermissions.keySet());
+        }
+
+        synchronized (linkedPolicies) {
+            linkedPolicyArray = linkedPolicies.toArray(new PolicyConfiguration[0]);
+        }
+
+        for (PolicyConfiguration linkedPolicy : linkedPolicyArray) {
+            if (linkedPolicy != this) {
+                Map<String, PermissionCollection> linkedRolePermissions = ((ElytronPolicyConfiguration) linkedPolicy).rolePermissions;
+
+                synchronized (linkedRolePermissions) {
+                    roleNames.addAll(linkedRolePermissions.keySet());
+                }
+            }
+        }
+
+        return roleNames;
+    }
+
     /* must not be called outside of synchronized(this) section */
     void transitionTo(State state) {
+        if (!State.IN_SERVICE.equals(state)) {
+            this.compiledPolicy = null;
+        }
         this.state = state;
+        ElytronPolicyConfigurationFactory.onTransition();
+    }
+
+    /* must not be called outside of synchronized(this) section */
+    private static void addAll(PermissionCollection permissions, PermissionCollection target) {
+        Enumeration<Permission> elements = permissions.elements();
+
+        while (elements.hasMoreElements()) {
+            target.add(checkNotNullParam("permission", elements.nextElement()));
+        }
     }
 
     /* must not be called outside of synchronized(this) section */
@@ -243,9 +428,8 @@ class ElytronPolicyConfiguration implements PolicyConfiguration {
         }
     }
 
-    /* must not be called outside of synchronized(this) section */
-    private boolean isDeleted() {
-        return State.DELETED.equals(this.state);
+    boolean isDeleted() {
+        return State.DELETED.equals(this.state); // volatile read - no synchronization needed
     }
 
 
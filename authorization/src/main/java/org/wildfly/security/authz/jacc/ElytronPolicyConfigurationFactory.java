@@ -19,13 +19,19 @@ package org.wildfly.security.authz.jacc;
 
 import static java.lang.System.getSecurityManager;
 import static java.security.AccessController.doPrivileged;
+import static org.wildfly.common.Assert.checkMinimumParameter;
 import static org.wildfly.common.Assert.checkNotNullParam;
 import static org.wildfly.security.authz.jacc.ElytronMessages.log;
 import static org.wildfly.security.authz.jacc.ElytronPolicyConfiguration.State.OPEN;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.PermissionCollection;
 import java.security.PrivilegedAction;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import jakarta.security.jacc.PolicyConfiguration;
 import jakarta.security.jacc.PolicyConfigurationFactory;
@@ -55,6 +61,35 @@ public class ElytronPolicyConfigurationFactory extends PolicyConfigurationFactor
      */
     private static final Map<String, ElytronPolicyConfiguration> configurationRegistry = new ConcurrentHashMap<>();
 
+    private static final int REGISTRY_LOCK_COUNT = 64;
+
+    /**
+     * The locks coordinating the changes of the registered configurations. Each policy context is guarded by one of them, so
+     * that independent policy contexts can be created, opened and replaced concurrently.
+     */
+    private static final Object[] registryLocks = new Object[REGISTRY_LOCK_COUNT];
+
+    static {
+        for (int i = 0; i < REGISTRY_LOCK_COUNT; i++) {
+            registryLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * The default minimum number of permissions of a policy configuration compiled in parallel, see
+     * {@link #setParallelCompilation(ForkJoinPool, int)}.
+     */
+    public static final int DEFAULT_PARALLEL_COMPILATION_THRESHOLD = 10_000;
+
+    /**
+     * The number of state transitions of the registered configurations, so that the caches of a policy can tell cheaply when
+     * a snapshot they hold may no longer be in service.
+     */
+    private static final AtomicInteger transitionCount = new AtomicInteger();
+
+    private static volatile ForkJoinPool compilationPool = ForkJoinPool.commonPool();
+    private static volatile int parallelCompilationThreshold = DEFAULT_PARALLEL_COMPILATION_THRESHOLD;
+
     /**
      * <p>Returns the {@link jakarta.security.jacc.PolicyConfiguration} associated with the current policy context identifier.
      *
@@ -67,17 +102,7 @@ public class ElytronPolicyConfigurationFactory extends PolicyConfigurationFactor
      * was set or if no configuration is found for the given identifier.
      */
     static <P extends PolicyConfiguration> P getCurrentPolicyConfiguration() throws PolicyContextException {
-        String contextID;
-
-        if (getSecurityManager() != null) {
-            contextID = doPrivileged(GET_CONTEXT_ID);
-        } else {
-            contextID = PolicyContext.getContextID();
-        }
-
-        if (contextID == null) {
-            throw log.authzContextIdentifierNotSet();
-        }
+        String contextID = getCurrentContextID();
 
         try {
             P policyConfiguration = (P) configurationRegistry.get(contextID);
@@ -96,21 +121,111 @@ public class ElytronPolicyConfigurationFactory extends PolicyConfigurationFactor
         }
     }
 
+    /**
+     * <p>Returns the snapshot of the {@link jakarta.security.jacc.PolicyConfiguration} associated with the current policy
+     * context identifier.
+     *
+     * <p>Configurations are never removed from the registry and only publish a snapshot while in <i>service</i>, so once the
+     * configuration is found this method does not take any lock and performs a single volatile read.
+     *
+     * @return the snapshot of the configuration associated with the current policy context identifier
+     * @throws PolicyContextException if the configuration is in a different state than <i>in service</i>, no policy context identifier
+     * was set or if no configuration is found for the given identifier.
+     */
+    static CompiledPolicy getCurrentCompiledPolicy() throws PolicyContextException {
+        String contextID = getCurrentContextID();
+
+        try {
+            ElytronPolicyConfiguration policyConfiguration = configurationRegistry.get(contextID);
+
+            if (policyConfiguration == null) {
+                throw log.authzInvalidPolicyContextIdentifier(contextID);
+            }
+
+            CompiledPolicy compiledPolicy = policyConfiguration.getCompiledPolicy();
+
+            if (compiledPolicy == null) {
+                throw log.authzPolicyConfigurationNotInService(contextID);
+            }
+
+            return compiledPolicy;
+        } catch (Exception e) {
+            throw log.authzUnableToObtainPolicyConfiguration(contextID, e);
+        }
+    }
+
+    /**
+     * Returns the snapshot of the configuration of the given policy context.
+     *
+     * @param contextID the policy context identifier
+     * @return the snapshot of the configuration, or {@code null} if the configuration is not in service
+     */
+    static CompiledPolicy getCompiledPolicy(String contextID) {
+        ElytronPolicyConfiguration policyConfiguration = configurationRegistry.get(contextID);
+
+        return policyConfiguration == null ? null : policyConfiguration.getCompiledPolicy();
+    }
+
+    /**
+     * Returns whether the configuration of the given policy context is deleted or was never created.
+     *
+     * @param contextID the policy context identifier
+     * @return {@code true} if no configuration of the policy context holds any permission
+     */
+    static boolean isDeleted(String contextID) {
+        ElytronPolicyConfiguration policyConfiguration = configurationRegistry.get(contextID);
+
+        return policyConfiguration == null || policyConfiguration.isDeleted();
+    }
+
+    /**
+     * Returns the number of state transitions of the registered configurations so far. A policy caching data per policy
+     * context only has to look for retired policy contexts when this number changes.
+     *
+     * @return the number of state transitions
+     */
+    static int getTransitionCount() {
+        return transitionCount.get();
+    }
+
+    static void onTransition() {
+        transitionCount.incrementAndGet();
+    }
+
+    private static String getCurrentContextID() {
+        String contextID;
+
+        if (getSecurityManager() != null) {
+            contextID = doPrivileged(GET_CONTEXT_ID);
+        } else {
+            contextID = PolicyContext.getContextID();
+        }
+
+        if (contextID == null) {
+            throw log.authzContextIdentifierNotSet();
+        }
+
+        return contextID;
+    }
+
     private PolicyConfiguration getPolicyConfiguration(String contextID, boolean create, boolean remove) throws PolicyContextException {
         checkNotNullParam("contextID", contextID);
 
-        synchronized (configurationRegistry) {
+        synchronized (getRegistryLock(contextID)) {
             ElytronPolicyConfiguration policyConfiguration = configurationRegistry.get(contextID);
 
             if (policyConfiguration == null) {
                 return create ? createPolicyConfiguration(contextID) : null;
             }
 
-            if (remove) {
-                policyConfiguration.delete();
-            }
+            // the state and the snapshot of a configuration change together under its lock, see ElytronPolicyConfiguration#transitionTo
+            synchronized (policyConfiguration) {
+                if (remove) {
+                    policyConfiguration.delete();
+                }
 
-            policyConfiguration.transitionTo(OPEN);
+                policyConfiguration.transitionTo(OPEN);
+            }
 
             return policyConfiguration;
         }
@@ -142,19 +257,187 @@ public class ElytronPolicyConfigurationFactory extends PolicyConfigurationFactor
         }
     }
 
-    @Override
-    public boolean inService(String contextID) throws PolicyContextException {
+    /**
+     * <p>Sets how policy configurations are compiled on commit.
+     *
+     * <p>A policy configuration holding at least {@code threshold} permissions builds its excluded, unchecked and role indexes
+     * in parallel on the given pool. Smaller configurations, for which scheduling would cost more than it saves, are compiled
+     * by the committing thread. By default, configurations of at least {@value #DEFAULT_PARALLEL_COMPILATION_THRESHOLD}
+     * permissions are compiled on the common pool.
+     *
+     * <p>As the policy configurations themselves, these settings are shared by every factory of the JVM.
+     *
+     * @param pool the pool compiling large configurations, or {@code null} to always compile in the committing thread
+     * @param threshold the minimum number of permissions of a configuration compiled in parallel
+     */
+    public static void setParallelCompilation(ForkJoinPool pool, int threshold) {
+        checkMinimumParameter("threshold", 0, threshold);
+        parallelCompilationThreshold = threshold;
+        compilationPool = pool;
+    }
+
+    static ForkJoinPool getCompilationPool() {
+        return compilationPool;
+    }
+
+    static int getParallelCompilationThreshold() {
+        return parallelCompilationThreshold;
+    }
+
+    /**
+     * <p>Returns a new {@link jakarta.security.jacc.PolicyConfiguration} in the <i>open</i> state that replaces the
+     * configuration of the given policy context once committed.
+     *
+     * <p>Unlike {@link #getPolicyConfiguration(String, boolean)}, the configuration currently in service is left in service
+     * while the replacement is being configured, so permissions keep being checked against it. Committing the replacement
+     * registers it in place of the current configuration in a single step, and the current configuration is then deleted.
+     * The replacement starts empty and keeps the links of the configuration it replaces. If another configuration was
+     * registered in the meantime, committing the replacement throws a {@link PolicyContextException} and the replacement is
+     * deleted.
+     *
+     * <p>While a replacement is being configured, the current configuration must not be obtained with
+     * {@link #getPolicyConfiguration(String, boolean)}, which would take it out of service.
+     *
+     * <p>If no configuration of the given policy context is in service, this method behaves as
+     * {@link #getPolicyConfiguration(String, boolean)} with {@code remove} set to {@code true}. A configuration committed
+     * concurrently is replaced rather than removed.
+     *
+     * @param contextID the policy context identifier
+     * @return the replacement configuration
+     * @throws PolicyContextException if the existing permissions of a configuration not in service could not be removed
+     */
+    public PolicyConfiguration getReplacementPolicyConfiguration(String contextID) throws PolicyContextException {
         checkNotNullParam("contextID", contextID);
 
-        synchronized (configurationRegistry) {
-            PolicyConfiguration policyConfiguration = configurationRegistry.get(contextID);
+        synchronized (getRegistryLock(contextID)) {
+            ElytronPolicyConfiguration policyConfiguration = configurationRegistry.get(contextID);
 
             if (policyConfiguration == null) {
-                return false;
+                return getPolicyConfiguration(contextID, true);
+            }
+
+            // a configuration committed after being checked must not be removed by the fallback
+            synchronized (policyConfiguration) {
+                return policyConfiguration.inService() ? new ElytronPolicyConfiguration(policyConfiguration)
+                        : getPolicyConfiguration(contextID, true);
             }
+        }
+    }
 
-            return policyConfiguration.inService();
+    /**
+     * Registers the given committed replacement in place of the configuration it replaces, then retires the replaced one.
+     *
+     * @param replaced the configuration to replace
+     * @param replacement the replacement configuration
+     * @throws PolicyContextException if the registered configuration is no longer the replaced one
+     */
+    static void replacePolicyConfiguration(ElytronPolicyConfiguration replaced, ElytronPolicyConfiguration replacement) throws PolicyContextException {
+        String contextID = replacement.getContextID();
+
+        synchronized (getRegistryLock(contextID)) {
+            if (!configurationRegistry.replace(contextID, replaced, replacement)) {
+                throw log.authzPolicyConfigurationChangedDuringReplacement(contextID);
+            }
         }
+
+        replaced.replaceWith(replacement);
+    }
+
+    /**
+     * <p>Returns the {@link jakarta.security.jacc.PolicyConfiguration} of the given policy context in the <i>open</i> state,
+     * holding the permissions read from a snapshot written by {@link #writeSnapshot(String, String, Path)}.
+     *
+     * <p>As with {@link #getPolicyConfiguration(String, boolean)} with {@code remove} set to {@code true}, any permission
+     * previously held by the configuration is removed. Links between policy configurations are not part of a snapshot, so the
+     * container still links and commits the returned configuration.
+     *
+     * <p>If the snapshot is missing, unreadable or was written for another deployment, this method returns {@code null}
+     * without changing the configuration, and the container is expected to translate the deployment again.
+     *
+     * @param contextID the policy context identifier
+     * @param deploymentHash the hash identifying the current deployment, for example a digest of its deployment descriptors
+     * @param snapshot the snapshot file
+     * @return the policy configuration holding the permissions of the snapshot, or {@code null} if the snapshot can't be used
+     * @throws PolicyContextException if the existing permissions of the configuration could not be removed
+     */
+    public PolicyConfiguration loadPolicyConfiguration(String contextID, String deploymentHash, Path snapshot) throws PolicyContextException {
+        checkNotNullParam("contextID", contextID);
+        checkNotNullParam("deploymentHash", deploymentHash);
+        checkNotNullParam("snapshot", snapshot);
+
+        PolicySnapshot policySnapshot;
+
+        try {
+            policySnapshot = PolicySnapshot.read(snapshot, contextID, deploymentHash);
+        } catch (IOException | IllegalArgumentException e) {
+            log.authzIgnoringPolicySnapshot(contextID, snapshot, e);
+            return null;
+        }
+
+        if (policySnapshot == null) {
+            return null;
+        }
+
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration(contextID, true);
+
+        policyConfiguration.addToExcludedPolicy(policySnapshot.getExcludedPermissions());
+        policyConfiguration.addToUncheckedPolicy(policySnapshot.getUncheckedPermissions());
+
+        for (Map.Entry<String, PermissionCollection> entry : policySnapshot.getRolePermissions().entrySet()) {
+            policyConfiguration.addToRole(entry.getKey(), entry.getValue());
+        }
+
+        return policyConfiguration;
+    }
+
+    /**
+     * <p>Writes the permissions of the {@link jakarta.security.jacc.PolicyConfiguration} of the given policy context to a
+     * snapshot file, so that {@link #loadPolicyConfiguration(String, String, Path)} can restore them on the next start of
+     * the same deployment.
+     *
+     * <p>The configuration must be in the <i>in service</i> state. The file is replaced atomically.
+     *
+     * @param contextID the policy context identifier
+     * @param deploymentHash the hash identifying the deployment the permissions were translated from
+     * @param snapshot the snapshot file
+     * @throws PolicyContextException if no configuration in service is found for the given identifier, if one of its
+     * permissions can't be reconstructed from its class name, name and actions or if the snapshot could not be written
+     */
+    public void writeSnapshot(String contextID, String deploymentHash, Path snapshot) throws PolicyContextException {
+        checkNotNullParam("contextID", contextID);
+        checkNotNullParam("deploymentHash", deploymentHash);
+        checkNotNullParam("snapshot", snapshot);
+
+        try {
+            ElytronPolicyConfiguration policyConfiguration = configurationRegistry.get(contextID);
+
+            if (policyConfiguration == null) {
+                throw log.authzInvalidPolicyContextIdentifier(contextID);
+            }
+
+            policyConfiguration.writeSnapshot(deploymentHash, snapshot);
+        } catch (Exception e) {
+            throw log.authzUnableToWritePolicySnapshot(contextID, snapshot, e);
+        }
+    }
+
+    @Override
+    public boolean inService(String contextID) throws PolicyContextException {
+        checkNotNullParam("contextID", contextID);
+
+        // the state of a configuration is volatile, no lock needed
+        PolicyConfiguration policyConfiguration = configurationRegistry.get(contextID);
+
+        if (policyConfiguration == null) {
+            return false;
+        }
+
+        return policyConfiguration.inService();
+    }
+
+    private static Object getRegistryLock(String contextID) {
+        int hash = contextID.hashCode();
+        return registryLocks[(hash ^ hash >>> 16) & (REGISTRY_LOCK_COUNT - 1)];
     }
 
     private ElytronPolicyConfiguration createPolicyConfiguration(String contextID) {
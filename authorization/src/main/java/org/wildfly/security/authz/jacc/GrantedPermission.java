@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+
+/**
+ * A permission held by a {@link PermissionIndex}, along with the mask of the roles it is granted to.
+ */
+final class GrantedPermission {
+
+    private final Permission permission;
+    private final long[] roles;
+
+    /**
+     * Create a new instance.
+     *
+     * @param permission the permission
+     * @param roles the mask of the roles the permission is granted to, or {@code null} if the permission applies regardless of
+     *              the roles of the caller, as do excluded and unchecked permissions
+     */
+    GrantedPermission(Permission permission, long[] roles) {
+        this.permission = permission;
+        this.roles = roles;
+    }
+
+    Permission getPermission() {
+        return this.permission;
+    }
+
+    /**
+     * Returns whether this permission implies the given one for a caller holding the given roles.
+     *
+     * @param permission the permission to check
+     * @param roles the mask of the roles of the caller
+     * @return {@code true} if the permission is granted to one of the roles and implies the given permission
+     */
+    boolean implies(Permission permission, long[] roles) {
+        return (this.roles == null || RoleTable.intersects(this.roles, roles)) && this.permission.implies(permission);
+    }
+
+    static boolean impliesAny(GrantedPermission[] permissions, Permission permission, long[] roles) {
+        if (permissions == null) {
+            return false;
+        }
+
+        for (GrantedPermission current : permissions) {
+            if (current.implies(permission, roles)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
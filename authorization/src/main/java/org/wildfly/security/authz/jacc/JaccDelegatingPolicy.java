@@ -21,27 +21,40 @@ import static java.lang.System.getSecurityManager;
 import static java.security.AccessController.doPrivileged;
 import static org.wildfly.security.authz.jacc.ElytronMessages.log;
 
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
 import java.security.CodeSource;
 import java.security.Permission;
 import java.security.PermissionCollection;
+import java.security.Permissions;
 import java.security.Policy;
 import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.security.ProtectionDomain;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import org.wildfly.common.Assert;
 import org.wildfly.security.auth.server.SecurityDomain;
 import org.wildfly.security.auth.server.SecurityIdentity;
 import org.wildfly.security.authz.Roles;
+import org.wildfly.security.authz.jacc.AuthorizationExplanation.Stage;
+import org.wildfly.security.authz.jacc.AuthorizationMetrics.ContextMetrics;
+import org.wildfly.security.authz.jacc.AuthorizationMetrics.Outcome;
+import org.wildfly.security.authz.jacc.DecisionCache.Decision;
 
 import jakarta.security.jacc.EJBMethodPermission;
 import jakarta.security.jacc.EJBRoleRefPermission;
 import jakarta.security.jacc.PolicyContext;
-import jakarta.security.jacc.PolicyContextException;
 import jakarta.security.jacc.WebResourcePermission;
 import jakarta.security.jacc.WebRoleRefPermission;
 import jakarta.security.jacc.WebUserDataPermission;
@@ -54,15 +67,29 @@ import jakarta.security.jacc.WebUserDataPermission;
  * the permissions are evaluated considering both JACC-specific permissions (as defined by the specs) and also the ones associated with the current
  * and authorized {@link SecurityIdentity}.
  *
+ * <p>The outcome and latency of every check of a JACC permission are recorded per policy context, see
+ * {@link AuthorizationStatisticsMXBean}. The reason of a single decision can be obtained on demand from
+ * {@link #explain(ProtectionDomain, Permission)}.
+ *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
-public class JaccDelegatingPolicy extends Policy {
+public class JaccDelegatingPolicy extends Policy implements AuthorizationStatisticsMXBean {
 
     private static final PrivilegedAction<Policy> GET_POLICY_ACTION = Policy::getPolicy;
     private static final String ANY_AUTHENTICATED_USER_ROLE = "**";
+    // shared by every instance, the roles of a caller only depend on the role table they were computed against
+    private static final ThreadLocal<CallerRoles> CALLER_ROLES = ThreadLocal.withInitial(CallerRoles::new);
 
     private final Policy delegate;
     private final Set<Class<? extends Permission>> supportedPermissionTypes = new HashSet<>();
+    private final DecisionCache decisionCache;
+    private final DelegateDecisionCache delegateDecisionCache;
+    private final AuthorizationMetrics metrics = new AuthorizationMetrics();
+    private volatile AuthorizationAuditor auditor;
+    private final WeakKeyCache<ProtectionDomain, PermissionCollection> domainPermissions = WeakKeyCache.strongValues();
+    private final WeakKeyCache<CodeSource, PermissionCollection> codeSourcePermissions = WeakKeyCache.strongValues();
+    private volatile int observedTransitionCount;
+    private ObjectName statisticsObjectName; // guarded by synchronized(this)
 
     /**
      * Create a new instance. In this case, the current policy will be automatically obtained and used to delegate method
@@ -78,7 +105,40 @@ public class JaccDelegatingPolicy extends Policy {
      * @param delegate the policy that will be used to delegate method calls
      */
     public JaccDelegatingPolicy(Policy delegate) {
+        this(delegate, DecisionCache.DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Create a new instance based on the given {@code delegate}, caching up to {@code decisionCacheSize} authorization
+     * decisions per policy context.
+     *
+     * @param delegate the policy that will be used to delegate method calls
+     * @param decisionCacheSize the maximum number of decisions cached per policy context, or {@code 0} to disable caching
+     */
+    public JaccDelegatingPolicy(Policy delegate, int decisionCacheSize) {
+        this(delegate, decisionCacheSize, 0);
+    }
+
+    /**
+     * Create a new instance based on the given {@code delegate}, caching up to {@code decisionCacheSize} authorization
+     * decisions per policy context and up to {@code delegateCacheSize} permissions granted by the delegate policy per
+     * protection domain.
+     *
+     * <p>Only permissions other than JACC permissions are cached for the delegate, and the cache is cleared by
+     * {@link #refresh()}. It must only be enabled if the delegate policy always takes the same decision for a given protection
+     * domain and permission until it is refreshed.
+     *
+     * @param delegate the policy that will be used to delegate method calls
+     * @param decisionCacheSize the maximum number of decisions cached per policy context, or {@code 0} to disable caching
+     * @param delegateCacheSize the maximum number of permissions granted by the delegate cached per protection domain, or
+     *                          {@code 0} to disable caching
+     */
+    public JaccDelegatingPolicy(Policy delegate, int decisionCacheSize, int delegateCacheSize) {
+        Assert.checkMinimumParameter("decisionCacheSize", 0, decisionCacheSize);
+        Assert.checkMinimumParameter("delegateCacheSize", 0, delegateCacheSize);
         this.delegate = Assert.checkNotNullParam("delegate", delegate);
+        this.decisionCache = new DecisionCache(decisionCacheSize);
+        this.delegateDecisionCache = new DelegateDecisionCache(delegateCacheSize);
         this.supportedPermissionTypes.add(WebResourcePermission.class);
         this.supportedPermissionTypes.add(WebRoleRefPermission.class);
         this.supportedPermissionTypes.add(WebUserDataPermission.class);
@@ -88,53 +148,233 @@ public class JaccDelegatingPolicy extends Policy {
 
     @Override
     public boolean implies(ProtectionDomain domain, Permission permission) {
+        if (!isJaccPermission(permission)) {
+            return delegateImplies(domain, permission);
+        }
+
+        long startTime = System.nanoTime();
+        CompiledPolicy compiledPolicy;
+        SecurityIdentity identity;
+
+        // the policy context handlers resolve the current identity once for the whole check
+        ResolvedIdentity.enter();
+
         try {
-            if (isJaccPermission(permission)) {
-                ElytronPolicyConfiguration policyConfiguration = ElytronPolicyConfigurationFactory.getCurrentPolicyConfiguration();
+            try {
+                compiledPolicy = ElytronPolicyConfigurationFactory.getCurrentCompiledPolicy();
+                identity = getCurrentSecurityIdentity();
+            } catch (Exception e) {
+                log.authzFailedToCheckPermission(domain, permission, e);
+                return this.delegate.implies(domain, permission);
+            }
 
-                if (impliesExcludedPermission(permission, policyConfiguration)) {
-                    return false;
-                }
+            pruneRetiredPolicyContexts();
 
-                if (impliesUncheckedPermission(permission, policyConfiguration)) {
-                    return true;
-                }
+            return implies(domain, permission, compiledPolicy, identity, this.metrics.get(compiledPolicy.getContextId()), startTime);
+        } finally {
+            ResolvedIdentity.exit();
+        }
+    }
 
-                if (impliesRolePermission(domain, permission, policyConfiguration)) {
-                    return true;
+    /**
+     * <p>Checks each of the given permissions against the given protection domain, as {@link #implies(ProtectionDomain, Permission)}
+     * does.
+     *
+     * <p>The policy configuration and the security identity of the current policy context are obtained once for the whole
+     * collection, and the roles of the caller are computed at most once, so that checking many permissions of the same
+     * caller, for instance every HTTP method of a web resource or every link of a page, costs little more than checking
+     * each permission against the index of the policy context.
+     *
+     * @param domain the protection domain to check the permissions against
+     * @param permissions the permissions to check
+     * @return a bit set whose bit {@code i} is set if the {@code i}-th permission, in iteration order, is granted
+     */
+    public BitSet implies(ProtectionDomain domain, Collection<? extends Permission> permissions) {
+        Assert.checkNotNullParam("permissions", permissions);
+
+        BitSet results = new BitSet(permissions.size());
+        CompiledPolicy compiledPolicy = null;
+        SecurityIdentity identity = null;
+        ContextMetrics metrics = null;
+        boolean resolved = false;
+        int index = 0;
+
+        ResolvedIdentity.enter();
+
+        try {
+            for (Permission permission : permissions) {
+                boolean granted;
+
+                if (!isJaccPermission(permission)) {
+                    granted = delegateImplies(domain, permission);
+                } else {
+                    long startTime = System.nanoTime();
+
+                    if (!resolved) {
+                        resolved = true;
+
+                        try {
+                            compiledPolicy = ElytronPolicyConfigurationFactory.getCurrentCompiledPolicy();
+                            identity = getCurrentSecurityIdentity();
+                            pruneRetiredPolicyContexts();
+                            metrics = this.metrics.get(compiledPolicy.getContextId());
+                        } catch (Exception e) {
+                            log.authzFailedToCheckPermission(domain, permission, e);
+                        }
+                    }
+
+                    if (metrics == null) {
+                        granted = this.delegate.implies(domain, permission);
+                    } else {
+                        granted = implies(domain, permission, compiledPolicy, identity, metrics, startTime);
+                    }
                 }
 
-                // Here we check the permissions mapped to the current identity.
-                // We only perform this check for JACC permissions otherwise we intercept all
-                // SecurityManager checks.
-                if (impliesIdentityPermission(permission)) {
-                    return true;
+                if (granted) {
+                    results.set(index);
                 }
+
+                index++;
             }
+        } finally {
+            ResolvedIdentity.exit();
+        }
 
-        } catch (Exception e) {
-            log.authzFailedToCheckPermission(domain, permission, e);
+        return results;
+    }
+
+    /**
+     * <p>Checks the given permission against the given protection domain, as {@link #implies(ProtectionDomain, Permission)}
+     * does, and explains which stage of this policy took the decision.
+     *
+     * <p>The policy configuration is evaluated stage by stage, bypassing the decision cache, and the check is neither
+     * recorded in the statistics nor audited. Other checks are not affected, so this method can be called for a single
+     * request, for instance by a container after an unexpected denial, while the policy context identifier and the security
+     * identity of the request are still associated with the current thread.
+     *
+     * @param domain the protection domain to check the permission against
+     * @param permission the permission to check
+     * @return the explanation of the decision
+     */
+    public AuthorizationExplanation explain(ProtectionDomain domain, Permission permission) {
+        Assert.checkNotNullParam("permission", permission);
+
+        if (!isJaccPermission(permission)) {
+            return new AuthorizationExplanation(null, null, permission, Stage.DELEGATE, delegateImplies(domain, permission),
+                    Collections.emptySet(), Collections.emptySet(), null);
         }
 
-        return this.delegate.implies(domain, permission);
+        ResolvedIdentity.enter();
+
+        try {
+            CompiledPolicy compiledPolicy;
+            SecurityIdentity identity;
+
+            try {
+                compiledPolicy = ElytronPolicyConfigurationFactory.getCurrentCompiledPolicy();
+                identity = getCurrentSecurityIdentity();
+            } catch (Exception e) {
+                return new AuthorizationExplanation(null, null, permission, Stage.DELEGATE, this.delegate.implies(domain, permission),
+                        Collections.emptySet(), Collections.emptySet(), e);
+            }
+
+            return explain(domain, permission, compiledPolicy, identity);
+        } finally {
+            ResolvedIdentity.exit();
+        }
     }
 
+    /**
+     * Returns the permissions of the given domain. A new collection is returned by every call.
+     *
+     * <p>When the delegate policy returns a read-only collection, its permissions are cached until the domain is collected or
+     * this policy is {@link #refresh() refreshed}, and permissions added to the returned collection are kept apart. Otherwise
+     * the collection of the delegate policy is used as is, and permissions are added to it.
+     *
+     * @param domain the protection domain
+     * @return the permissions of the domain
+     */
     @Override
     public PermissionCollection getPermissions(ProtectionDomain domain) {
-        final PermissionCollection delegatePermissions = delegate.getPermissions(domain);
+        return getPermissions(this.domainPermissions, domain, domain);
+    }
+
+    /**
+     * Returns the permissions of a domain with the given code source and no principal, cached as the permissions of a domain,
+     * see {@link #getPermissions(ProtectionDomain)}.
+     *
+     * @param codeSource the code source
+     * @return the permissions of the code source
+     */
+    @Override
+    public PermissionCollection getPermissions(CodeSource codeSource) {
+        if (codeSource == null) {
+            return Policy.UNSUPPORTED_EMPTY_COLLECTION;
+        }
+
+        return getPermissions(this.codeSourcePermissions, codeSource, new ProtectionDomain(codeSource, null));
+    }
+
+    @Override
+    public void refresh() {
+        this.domainPermissions.clear();
+        this.codeSourcePermissions.clear();
+        this.decisionCache.invalidateAll();
+        this.delegateDecisionCache.invalidateAll();
+        this.delegate.refresh();
+    }
+
+    private <K> PermissionCollection getPermissions(WeakKeyCache<K, PermissionCollection> cache, K key, ProtectionDomain domain) {
+        PermissionCollection cachedPermissions = key == null ? null : cache.get(key);
+
+        if (cachedPermissions != null) {
+            return createPermissions(domain, cachedPermissions, true);
+        }
+
+        PermissionCollection delegatePermissions = delegate.getPermissions(domain);
+
+        if (key == null || !delegatePermissions.isReadOnly()) {
+            // the delegate policy may still change a collection that is not read-only, so it is never cached
+            return createPermissions(domain, delegatePermissions, false);
+        }
+
+        return createPermissions(domain, cache.putIfAbsent(key, copyPermissions(delegatePermissions)), true);
+    }
+
+    /**
+     * Copies the given read-only permissions, so that the cached copy does not reference the domain they were granted to.
+     */
+    private static PermissionCollection copyPermissions(PermissionCollection delegatePermissions) {
+        Permissions permissions = new Permissions();
+        Enumeration<Permission> elements = delegatePermissions.elements();
+
+        while (elements.hasMoreElements()) {
+            permissions.add(elements.nextElement());
+        }
+
+        permissions.setReadOnly();
+
+        return permissions;
+    }
+
+    private PermissionCollection createPermissions(ProtectionDomain domain, PermissionCollection delegatePermissions, boolean shared) {
+        // a shared collection is never changed, the permissions added by a caller are kept apart
+        final PermissionCollection addedPermissions = shared ? new Permissions() : delegatePermissions;
+
         return new PermissionCollection() {
             @Override
             public void add(Permission permission) {
-                if (isJaccPermission(permission)) {
+                if (isJaccPermission(permission) || isReadOnly()) {
                     throw ElytronMessages.log.readOnlyPermissionCollection();
                 } else {
-                    delegatePermissions.add(permission);
+                    addedPermissions.add(permission);
                 }
             }
 
             @Override
             public boolean implies(Permission permission) {
-                if (!isJaccPermission(permission) && delegatePermissions.implies(permission)) {
+                if (!isJaccPermission(permission)
+                        && (delegatePermissions.implies(permission) || (shared && addedPermissions.implies(permission)))) {
                     return true;
                 }
 
@@ -143,25 +383,281 @@ public class JaccDelegatingPolicy extends Policy {
 
             @Override
             public Enumeration<Permission> elements() {
-                return delegatePermissions.elements();
+                if (!shared) {
+                    return delegatePermissions.elements();
+                }
+
+                List<Permission> permissions = Collections.list(delegatePermissions.elements());
+                permissions.addAll(Collections.list(addedPermissions.elements()));
+                return Collections.enumeration(permissions);
             }
         };
     }
 
+    /**
+     * Returns the number of checks of JACC permissions answered from the decision cache.
+     *
+     * @return the number of decision cache hits
+     */
+    public long getDecisionCacheHitCount() {
+        return this.decisionCache.getHitCount();
+    }
+
+    /**
+     * Returns the number of checks of JACC permissions that had to be evaluated against the policy configuration.
+     *
+     * @return the number of decision cache misses
+     */
+    public long getDecisionCacheMissCount() {
+        return this.decisionCache.getMissCount();
+    }
+
     @Override
-    public PermissionCollection getPermissions(CodeSource codeSource) {
-        return codeSource == null ? Policy.UNSUPPORTED_EMPTY_COLLECTION : getPermissions(new ProtectionDomain(codeSource, null));
+    public List<PolicyContextStatistics> getPolicyContextStatistics() {
+        pruneRetiredPolicyContexts();
+        return this.metrics.getStatistics();
     }
 
     @Override
-    public void refresh() {
-        //TODO: we can probably provide some caching for permissions and checks. In this case, we can use this method to refresh the cache.
-        this.delegate.refresh();
+    public PolicyContextStatistics getStatistics(String contextId) {
+        pruneRetiredPolicyContexts();
+        return this.metrics.getStatistics(contextId);
+    }
+
+    @Override
+    public void resetStatistics() {
+        this.metrics.reset();
+    }
+
+    /**
+     * Registers the authorization statistics of this policy as a platform MBean named
+     * {@value AuthorizationStatisticsMXBean#OBJECT_NAME}.
+     *
+     * @throws JMException if the MBean could not be registered, for instance because the statistics of another policy are
+     * already registered under this name
+     */
+    public void registerStatisticsMBean() throws JMException {
+        registerStatisticsMBean(new ObjectName(AuthorizationStatisticsMXBean.OBJECT_NAME));
+    }
+
+    /**
+     * Registers the authorization statistics of this policy as a platform MBean with the given name, so that the statistics
+     * of several policies can be registered. The MBean only exposes the statistics, not this policy.
+     *
+     * @param objectName the name of the MBean
+     * @throws JMException if the MBean could not be registered, for instance because another MBean is already registered
+     * under this name
+     * @throws IllegalStateException if the statistics of this policy are already registered
+     */
+    public synchronized void registerStatisticsMBean(ObjectName objectName) throws JMException {
+        Assert.checkNotNullParam("objectName", objectName);
+
+        if (this.statisticsObjectName != null) {
+            throw log.authzStatisticsAlreadyRegistered(this.statisticsObjectName);
+        }
+
+        this.statisticsObjectName = ManagementFactory.getPlatformMBeanServer().registerMBean(new Statistics(this), objectName)
+                .getObjectName();
+    }
+
+    /**
+     * Unregisters the platform MBean registered by {@link #registerStatisticsMBean()} or
+     * {@link #registerStatisticsMBean(ObjectName)}, if any. The MBeans registered by other policies are left in place.
+     *
+     * @throws JMException if the MBean could not be unregistered
+     */
+    public synchronized void unregisterStatisticsMBean() throws JMException {
+        ObjectName objectName = this.statisticsObjectName;
+
+        if (objectName != null) {
+            this.statisticsObjectName = null;
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+    }
+
+    /**
+     * Set the auditor of the authorization decisions taken by this policy. Only the checks of JACC permissions against a
+     * policy context in service are audited.
+     *
+     * @param auditor the auditor, or {@code null} to stop auditing
+     */
+    public void setAuthorizationAuditor(AuthorizationAuditor auditor) {
+        this.auditor = auditor;
     }
 
-    private boolean impliesIdentityPermission(Permission permission) {
-        SecurityIdentity actualIdentity = getCurrentSecurityIdentity();
-        return actualIdentity != null && actualIdentity.implies(permission);
+    private boolean implies(ProtectionDomain domain, Permission permission, CompiledPolicy compiledPolicy, SecurityIdentity identity,
+            ContextMetrics metrics, long startTime) {
+        try {
+            Decision decision = decide(domain, identity, permission, compiledPolicy);
+
+            if (Decision.EXCLUDED.equals(decision)) {
+                return record(metrics, Outcome.EXCLUDED, startTime, identity, permission);
+            }
+
+            if (Decision.UNCHECKED.equals(decision)) {
+                return record(metrics, Outcome.UNCHECKED, startTime, identity, permission);
+            }
+
+            if (Decision.GRANTED_BY_ROLE.equals(decision)) {
+                return record(metrics, Outcome.ROLE, startTime, identity, permission);
+            }
+
+            // Here we check the permissions mapped to the current identity.
+            // We only perform this check for JACC permissions otherwise we intercept all
+            // SecurityManager checks.
+            if (identity != null && identity.implies(permission)) {
+                return record(metrics, Outcome.IDENTITY, startTime, identity, permission);
+            }
+        } catch (Exception e) {
+            log.authzFailedToCheckPermission(domain, permission, e);
+        }
+
+        boolean granted = this.delegate.implies(domain, permission);
+
+        record(metrics, granted ? Outcome.DELEGATE_GRANTED : Outcome.DELEGATE_DENIED, startTime, identity, permission);
+
+        return granted;
+    }
+
+    /**
+     * Records the outcome of a check in the statistics of its policy context and audits it.
+     *
+     * @return whether the permission is granted
+     */
+    private boolean record(ContextMetrics metrics, Outcome outcome, long startTime, SecurityIdentity identity, Permission permission) {
+        metrics.record(outcome, startTime);
+
+        AuthorizationAuditor auditor = this.auditor;
+
+        if (auditor != null) {
+            auditor.audit(metrics.getContextId(), identity, permission, outcome.isGranted());
+        }
+
+        return outcome.isGranted();
+    }
+
+    /**
+     * Checks a permission other than a JACC permission against the delegate policy, remembering the grants if enabled.
+     */
+    private boolean delegateImplies(ProtectionDomain domain, Permission permission) {
+        if (!this.delegateDecisionCache.isCacheable(domain, permission)) {
+            return this.delegate.implies(domain, permission);
+        }
+
+        if (this.delegateDecisionCache.isGranted(domain, permission)) {
+            return true;
+        }
+
+        if (this.delegate.implies(domain, permission)) {
+            this.delegateDecisionCache.putGranted(domain, permission);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Drops the cached decisions of the policy contexts that left the in service state and the statistics of the deleted
+     * ones, if any policy configuration changed state since the last call. Otherwise this only takes a volatile read.
+     */
+    private void pruneRetiredPolicyContexts() {
+        int transitionCount = ElytronPolicyConfigurationFactory.getTransitionCount();
+
+        if (transitionCount != this.observedTransitionCount) {
+            // set first, so that a transition happening while pruning triggers another pass
+            this.observedTransitionCount = transitionCount;
+            this.decisionCache.prune();
+            this.metrics.prune();
+        }
+    }
+
+    private Decision decide(ProtectionDomain domain, SecurityIdentity identity, Permission permission, CompiledPolicy compiledPolicy) {
+        RoleSet roles = getRoles(domain, identity, compiledPolicy.getRoleTable());
+
+        if (!this.decisionCache.isEnabled()) {
+            return decide(roles.getMask(), permission, compiledPolicy);
+        }
+
+        Decision decision = this.decisionCache.get(compiledPolicy, roles, permission);
+
+        if (decision == null) {
+            decision = decide(roles.getMask(), permission, compiledPolicy);
+            this.decisionCache.put(compiledPolicy, roles, permission, decision);
+        }
+
+        return decision;
+    }
+
+    private Decision decide(long[] roles, Permission permission, CompiledPolicy compiledPolicy) {
+        if (compiledPolicy.impliesExcluded(permission)) {
+            return Decision.EXCLUDED;
+        }
+
+        if (compiledPolicy.impliesUnchecked(permission)) {
+            return Decision.UNCHECKED;
+        }
+
+        if (compiledPolicy.impliesRole(roles, permission)) {
+            return Decision.GRANTED_BY_ROLE;
+        }
+
+        return Decision.NOT_DECIDED;
+    }
+
+    private AuthorizationExplanation explain(ProtectionDomain domain, Permission permission, CompiledPolicy compiledPolicy,
+            SecurityIdentity identity) {
+        String contextId = compiledPolicy.getContextId();
+        String identityName = identity == null ? null : identity.getPrincipal().getName();
+        RoleTable roleTable = compiledPolicy.getRoleTable();
+        Set<String> callerRoles = new LinkedHashSet<>();
+        Set<String> grantingRoles = new LinkedHashSet<>();
+
+        try {
+            // as when checking, a domain whose roles can't be obtained leaves the decision to the delegate
+            long[] roles = newRoleMask(domain, identity, roleTable);
+
+            for (int id = 0; id < roleTable.size(); id++) {
+                if (RoleTable.contains(roles, id)) {
+                    callerRoles.add(roleTable.getName(id));
+                }
+            }
+
+            if (compiledPolicy.impliesExcluded(permission)) {
+                return new AuthorizationExplanation(contextId, identityName, permission, Stage.EXCLUDED, false, callerRoles,
+                        grantingRoles, null);
+            }
+
+            if (compiledPolicy.impliesUnchecked(permission)) {
+                return new AuthorizationExplanation(contextId, identityName, permission, Stage.UNCHECKED, true, callerRoles,
+                        grantingRoles, null);
+            }
+
+            for (String roleName : callerRoles) {
+                long[] role = roleTable.newMask();
+
+                roleTable.addRole(role, roleName);
+
+                if (compiledPolicy.impliesRole(role, permission)) {
+                    grantingRoles.add(roleName);
+                }
+            }
+
+            if (!grantingRoles.isEmpty()) {
+                return new AuthorizationExplanation(contextId, identityName, permission, Stage.ROLE, true, callerRoles,
+                        grantingRoles, null);
+            }
+
+            if (identity != null && identity.implies(permission)) {
+                return new AuthorizationExplanation(contextId, identityName, permission, Stage.IDENTITY, true, callerRoles,
+                        grantingRoles, null);
+            }
+        } catch (Exception e) {
+            return new AuthorizationExplanation(contextId, identityName, permission, Stage.DELEGATE, this.delegate.implies(domain, permission),
+                    callerRoles, grantingRoles, e);
+        }
+
+        return new AuthorizationExplanation(contextId, identityName, permission, Stage.DELEGATE, this.delegate.implies(domain, permission),
+                callerRoles, grantingRoles, null);
     }
 
     private SecurityIdentity getCurrentSecurityIdentity() {
@@ -174,77 +670,115 @@ public class JaccDelegatingPolicy extends Policy {
         return null;
     }
 
-    private void extractRolesFromCurrentIdentity(Set<String> roles) throws PolicyContextException, ClassNotFoundException {
-        SecurityIdentity identity = getCurrentSecurityIdentity();
-
+    private void extractRolesFromIdentity(SecurityIdentity identity, RoleTable roleTable, long[] roles) {
         if (identity != null) {
             Roles identityRoles = identity.getRoles();
 
             if (identityRoles != null) {
                 for (String roleName : identityRoles) {
-                    roles.add(roleName);
+                    roleTable.addRole(roles, roleName);
                 }
             }
         }
     }
 
-    private void extractRolesFromProtectionDomain(ProtectionDomain domain, Set<String> roles) {
+    private void extractRolesFromProtectionDomain(ProtectionDomain domain, RoleTable roleTable, long[] roles) {
         Principal[] domainPrincipals = domain.getPrincipals();
 
         if (domainPrincipals != null) {
             for (Principal principal : domainPrincipals) {
-                roles.add(principal.getName());
+                roleTable.addRole(roles, principal.getName());
             }
         }
     }
 
-    private boolean impliesRolePermission(ProtectionDomain domain, Permission permission, ElytronPolicyConfiguration policyConfiguration) throws PolicyContextException, ClassNotFoundException {
-        Set<String> roles = new HashSet<>();
+    /**
+     * Returns the roles of the caller. Roles that are unknown to the policy context can not grant any permission, so they are
+     * left out. The roles last computed by the current thread are reused as long as the same protection domain and identity
+     * are checked against the same role table, so that consecutive checks of a caller do not allocate.
+     */
+    private RoleSet getRoles(ProtectionDomain domain, SecurityIdentity identity, RoleTable roleTable) {
+        CallerRoles callerRoles = CALLER_ROLES.get();
+
+        if (refersTo(callerRoles.roleTable, roleTable) && refersTo(callerRoles.domain, domain) && refersTo(callerRoles.identity, identity)) {
+            return callerRoles.roles;
+        }
+
+        long[] roles = newRoleMask(domain, identity, roleTable);
+
+        callerRoles.roleTable = new WeakReference<>(roleTable);
+        callerRoles.domain = domain == null ? null : new WeakReference<>(domain);
+        callerRoles.identity = identity == null ? null : new WeakReference<>(identity);
+        callerRoles.roles = new RoleSet(roles);
+
+        return callerRoles.roles;
+    }
+
+    /**
+     * Returns whether the given reference refers to the given object, a {@code null} object being only referred to by a
+     * {@code null} reference so that a cleared reference never matches.
+     */
+    private static boolean refersTo(WeakReference<?> reference, Object object) {
+        return object == null ? reference == null : reference != null && reference.get() == object;
+    }
+
+    private long[] newRoleMask(ProtectionDomain domain, SecurityIdentity identity, RoleTable roleTable) {
+        long[] roles = roleTable.newMask();
 
         // keep JACC behavior where roles are obtained as Principal instances from a ProtectionDomain
-        extractRolesFromProtectionDomain(domain, roles);
+        extractRolesFromProtectionDomain(domain, roleTable, roles);
 
         // obtain additional roles from the current authenticated identity.
         // in this case the a RoleMapper will be used to map roles from the authenticated identity
-        extractRolesFromCurrentIdentity(roles);
+        extractRolesFromIdentity(identity, roleTable, roles);
 
-        roles.add(ANY_AUTHENTICATED_USER_ROLE);
+        roleTable.addRole(roles, ANY_AUTHENTICATED_USER_ROLE);
 
-        Map<String, PermissionCollection> rolePermissions = policyConfiguration.getPerRolePermissions();
+        return roles;
+    }
 
-        synchronized (rolePermissions) {
-            for (String roleName : roles) {
-                PermissionCollection permissions = rolePermissions.get(roleName);
+    private boolean isJaccPermission(Permission permission) {
+        return this.supportedPermissionTypes.contains(permission.getClass());
+    }
 
-                if (permissions != null) {
-                    if (permissions.implies(permission)) {
-                        return true;
-                    }
-                }
-            }
-        }
+    /**
+     * The MBean exposing the statistics of a policy, and nothing else of it.
+     */
+    private static final class Statistics implements AuthorizationStatisticsMXBean {
 
-        return false;
-    }
+        private final JaccDelegatingPolicy policy;
 
-    private boolean impliesUncheckedPermission(Permission permission, ElytronPolicyConfiguration policyConfiguration) {
-        PermissionCollection uncheckedPermissions = policyConfiguration.getUncheckedPermissions();
+        private Statistics(JaccDelegatingPolicy policy) {
+            this.policy = policy;
+        }
 
-        synchronized (uncheckedPermissions) {
-            return uncheckedPermissions.implies(permission);
+        @Override
+        public List<PolicyContextStatistics> getPolicyContextStatistics() {
+            return this.policy.getPolicyContextStatistics();
         }
-    }
 
-    private boolean impliesExcludedPermission(Permission permission, ElytronPolicyConfiguration policyConfiguration) {
-        PermissionCollection excludedPermissions = policyConfiguration.getExcludedPermissions();
+        @Override
+        public PolicyContextStatistics getStatistics(String contextId) {
+            return this.policy.getStatistics(contextId);
+        }
 
-        synchronized (excludedPermissions) {
-            return excludedPermissions.implies(permission);
+        @Override
+        public void resetStatistics() {
+            this.policy.resetStatistics();
         }
     }
 
-    private boolean isJaccPermission(Permission permission) {
-        return this.supportedPermissionTypes.contains(permission.getClass());
+    /**
+     * The roles of the last caller checked by a thread. A protection domain never changes its principals and a security
+     * identity is immutable, so the roles remain valid until the role table of the policy context is replaced by a commit.
+     * The role table, domain and identity are weakly referenced, so that pooled threads do not retain the identity of their
+     * last request, nor the role table of an undeployed policy context.
+     */
+    private static final class CallerRoles {
+
+        private WeakReference<RoleTable> roleTable;
+        private WeakReference<ProtectionDomain> domain;
+        private WeakReference<SecurityIdentity> identity;
+        private RoleSet roles;
     }
 }
-
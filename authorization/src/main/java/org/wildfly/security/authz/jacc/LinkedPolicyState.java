@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * <p>The compilation state shared by the policy configurations linked together, as the modules of an application usually are.
+ *
+ * <p>Linked policy contexts share the same principal-to-role mapping, so they are compiled against a single {@link RoleTable}
+ * covering the roles of all of them. The roles of a caller are then resolved once for every linked policy context. Equal
+ * permissions granted by several policy contexts, linked or not, are held by a single instance through the
+ * {@link PermissionInterner}. Permissions are still granted per policy context, so decisions are never shared between linked
+ * policy contexts.
+ */
+final class LinkedPolicyState {
+
+    private RoleTable roleTable = RoleTable.of(Collections.emptySet());
+
+    /**
+     * Returns the role table shared by the linked policy contexts, extended with the given roles if needed. Snapshots already
+     * compiled keep the table they were compiled against.
+     *
+     * @param roleNames the roles of the linked policy contexts
+     * @return a role table holding all the given roles
+     */
+    synchronized RoleTable getRoleTable(Collection<String> roleNames) {
+        this.roleTable = this.roleTable.withRoles(roleNames);
+
+        return this.roleTable;
+    }
+}
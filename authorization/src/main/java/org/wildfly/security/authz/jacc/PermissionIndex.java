@@ -0,0 +1,358 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.AllPermission;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import jakarta.security.jacc.EJBRoleRefPermission;
+import jakarta.security.jacc.WebResourcePermission;
+import jakarta.security.jacc.WebRoleRefPermission;
+import jakarta.security.jacc.WebUserDataPermission;
+
+/**
+ * <p>A read-only set of permissions optimised for {@link #implies(Permission, long[])} checks.
+ *
+ * <p>Web resource and web user data permissions are held by a {@link WebPermissionIndex}, EJB method permissions by an
+ * {@link EjbMethodPermissionIndex} and role reference permissions by a {@link RoleRefPermissionIndex}. Any other permission
+ * is held by a read-only {@link Permissions} collection. As with {@link Permissions}, a permission is only implied by permissions of the
+ * same type, unless the set contains an {@link AllPermission}.
+ *
+ * <p>An index built from the permissions of all the roles of a policy context holds each distinct permission once, along
+ * with the mask of the roles it is granted to, so that a check against the roles of a caller evaluates every candidate
+ * permission at most once, whatever the number of roles of the caller.
+ */
+final class PermissionIndex {
+
+    private final GrantedPermission allPermission;
+    private final WebPermissionIndex webResourcePermissions;
+    private final WebPermissionIndex webUserDataPermissions;
+    private final RoleRefPermissionIndex webRoleRefPermissions;
+    private final EjbMethodPermissionIndex ejbMethodPermissions;
+    private final RoleRefPermissionIndex ejbRoleRefPermissions;
+    private final PermissionCollection otherPermissions;
+    private final PermissionCollection[] otherRolePermissions;
+
+    private PermissionIndex(GrantedPermission allPermission, WebPermissionIndex webResourcePermissions, WebPermissionIndex webUserDataPermissions,
+            RoleRefPermissionIndex webRoleRefPermissions, EjbMethodPermissionIndex ejbMethodPermissions, RoleRefPermissionIndex ejbRoleRefPermissions,
+            PermissionCollection otherPermissions, PermissionCollection[] otherRolePermissions) {
+        this.allPermission = allPermission;
+        this.webResourcePermissions = webResourcePermissions;
+        this.webUserDataPermissions = webUserDataPermissions;
+        this.webRoleRefPermissions = webRoleRefPermissions;
+        this.ejbMethodPermissions = ejbMethodPermissions;
+        this.ejbRoleRefPermissions = ejbRoleRefPermissions;
+        this.otherPermissions = otherPermissions;
+        this.otherRolePermissions = otherRolePermissions;
+    }
+
+    /**
+     * Create an index holding the permissions of the given collection. The caller must prevent concurrent modifications of
+     * the collection while this method runs.
+     *
+     * @param permissions the permissions to index
+     * @return the index
+     */
+    static PermissionIndex of(PermissionCollection permissions) {
+        return of(permissions, UnaryOperator.identity());
+    }
+
+    /**
+     * Create an index holding the permissions of the given collection. The caller must prevent concurrent modifications of
+     * the collection while this method runs.
+     *
+     * @param permissions the permissions to index
+     * @param interner the function returning the instance to hold for each permission
+     * @return the index
+     */
+    static PermissionIndex of(PermissionCollection permissions, UnaryOperator<Permission> interner) {
+        return of(permissions, interner, null);
+    }
+
+    /**
+     * Create an index holding the permissions of the given collection. The caller must prevent concurrent modifications of
+     * the collection while this method runs.
+     *
+     * @param permissions the permissions to index
+     * @param interner the function returning the instance to hold for each permission, which must be thread safe if
+     *                 {@code pool} is not {@code null}
+     * @param pool the pool building the index of each type of permission in parallel, or {@code null} to build them in turn
+     * @return the index
+     */
+    static PermissionIndex of(PermissionCollection permissions, UnaryOperator<Permission> interner, ForkJoinPool pool) {
+        Builder builder = new Builder();
+        Permissions otherPermissions = new Permissions();
+        Enumeration<Permission> elements = permissions.elements();
+
+        while (elements.hasMoreElements()) {
+            Permission permission = elements.nextElement();
+
+            if (isIndexed(permission)) {
+                builder.add(new GrantedPermission(interner.apply(permission), null));
+            } else {
+                otherPermissions.add(permission);
+            }
+        }
+
+        otherPermissions.setReadOnly();
+
+        return builder.build(otherPermissions, null, pool);
+    }
+
+    /**
+     * Create an index holding the permissions granted to each role of the given table. The caller must prevent concurrent
+     * modifications of the collections while this method runs.
+     *
+     * @param rolePermissions the permissions granted to each role
+     * @param roleTable the table of the roles of the policy context, which must hold every role of {@code rolePermissions}
+     * @return the index
+     */
+    static PermissionIndex of(Map<String, PermissionCollection> rolePermissions, RoleTable roleTable) {
+        return of(rolePermissions, roleTable, UnaryOperator.identity());
+    }
+
+    /**
+     * Create an index holding the permissions granted to each role of the given table. The caller must prevent concurrent
+     * modifications of the collections while this method runs.
+     *
+     * @param rolePermissions the permissions granted to each role
+     * @param roleTable the table of the roles of the policy context, which must hold every role of {@code rolePermissions}
+     * @param interner the function returning the instance to hold for each permission
+     * @return the index
+     */
+    static PermissionIndex of(Map<String, PermissionCollection> rolePermissions, RoleTable roleTable, UnaryOperator<Permission> interner) {
+        return of(rolePermissions, roleTable, interner, null);
+    }
+
+    /**
+     * Create an index holding the permissions granted to each role of the given table. The caller must prevent concurrent
+     * modifications of the collections while this method runs.
+     *
+     * @param rolePermissions the permissions granted to each role
+     * @param roleTable the table of the roles of the policy context, which must hold every role of {@code rolePermissions}
+     * @param interner the function returning the instance to hold for each permission, which must be thread safe if
+     *                 {@code pool} is not {@code null}
+     * @param pool the pool building the index of each type of permission in parallel, or {@code null} to build them in turn
+     * @return the index
+     */
+    static PermissionIndex of(Map<String, PermissionCollection> rolePermissions, RoleTable roleTable, UnaryOperator<Permission> interner,
+            ForkJoinPool pool) {
+        Map<Permission, long[]> indexedPermissions = new LinkedHashMap<>();
+        PermissionCollection[] otherRolePermissions = new PermissionCollection[roleTable.size()];
+
+        for (Map.Entry<String, PermissionCollection> entry : rolePermissions.entrySet()) {
+            int id = roleTable.getId(entry.getKey());
+            Enumeration<Permission> elements = entry.getValue().elements();
+
+            while (elements.hasMoreElements()) {
+                Permission permission = elements.nextElement();
+
+                if (isIndexed(permission)) {
+                    // a permission granted to several roles is held once
+                    RoleTable.set(indexedPermissions.computeIfAbsent(permission, key -> roleTable.newMask()), id);
+                } else {
+                    if (otherRolePermissions[id] == null) {
+                        otherRolePermissions[id] = new Permissions();
+                    }
+
+                    otherRolePermissions[id].add(permission);
+                }
+            }
+        }
+
+        Builder builder = new Builder();
+
+        for (Map.Entry<Permission, long[]> entry : indexedPermissions.entrySet()) {
+            builder.add(new GrantedPermission(interner.apply(entry.getKey()), entry.getValue()));
+        }
+
+        for (PermissionCollection permissions : otherRolePermissions) {
+            if (permissions != null) {
+                permissions.setReadOnly();
+            }
+        }
+
+        return builder.build(null, otherRolePermissions, pool);
+    }
+
+    /**
+     * Returns whether the given permission is implied by this index, which must have been created by
+     * {@link #of(PermissionCollection)}.
+     *
+     * @param permission the permission to check
+     * @return {@code true} if the permission is implied
+     */
+    boolean implies(Permission permission) {
+        return implies(permission, null);
+    }
+
+    /**
+     * Returns whether the given permission is implied by the permissions granted to any of the given roles.
+     *
+     * @param permission the permission to check
+     * @param roles the mask of the roles of the caller, only {@code null} if the index was created by
+     *              {@link #of(PermissionCollection)}
+     * @return {@code true} if the permission is implied
+     */
+    boolean implies(Permission permission, long[] roles) {
+        if (this.allPermission != null && this.allPermission.implies(permission, roles)) {
+            return true;
+        }
+
+        if (permission instanceof WebResourcePermission) {
+            return this.webResourcePermissions.implies(permission, roles);
+        }
+
+        if (permission instanceof WebUserDataPermission) {
+            return this.webUserDataPermissions.implies(permission, roles);
+        }
+
+        if (permission instanceof WebRoleRefPermission) {
+            return this.webRoleRefPermissions.implies(permission, roles);
+        }
+
+        if (permission instanceof EJBMethodPermission) {
+            return this.ejbMethodPermissions.implies(permission, roles);
+        }
+
+        if (permission instanceof EJBRoleRefPermission) {
+            return this.ejbRoleRefPermissions.implies(permission, roles);
+        }
+
+        if (this.otherPermissions != null) {
+            return this.otherPermissions.implies(permission);
+        }
+
+        for (int i = 0; i < roles.length; i++) {
+            long word = roles[i];
+
+            while (word != 0) {
+                PermissionCollection permissions = this.otherRolePermissions[i * Long.SIZE + Long.numberOfTrailingZeros(word)];
+
+                if (permissions != null && permissions.implies(permission)) {
+                    return true;
+                }
+
+                word &= word - 1;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isIndexed(Permission permission) {
+        return permission instanceof AllPermission || permission instanceof WebResourcePermission
+                || permission instanceof WebUserDataPermission || permission instanceof WebRoleRefPermission
+                || permission instanceof EJBMethodPermission || permission instanceof EJBRoleRefPermission;
+    }
+
+    /**
+     * Sorts the permissions by type before building the index of each type, in turn or in parallel. Permissions are added to
+     * each index in the order they were added to this builder, so both ways build the same indexes.
+     */
+    private static final class Builder {
+
+        private final List<GrantedPermission> webResourcePermissions = new ArrayList<>();
+        private final List<GrantedPermission> webUserDataPermissions = new ArrayList<>();
+        private final List<GrantedPermission> webRoleRefPermissions = new ArrayList<>();
+        private final List<GrantedPermission> ejbMethodPermissions = new ArrayList<>();
+        private final List<GrantedPermission> ejbRoleRefPermissions = new ArrayList<>();
+        private GrantedPermission allPermission;
+
+        private void add(GrantedPermission granted) {
+            Permission permission = granted.getPermission();
+
+            if (permission instanceof WebResourcePermission) {
+                this.webResourcePermissions.add(granted);
+            } else if (permission instanceof WebUserDataPermission) {
+                this.webUserDataPermissions.add(granted);
+            } else if (permission instanceof WebRoleRefPermission) {
+                this.webRoleRefPermissions.add(granted);
+            } else if (permission instanceof EJBMethodPermission) {
+                this.ejbMethodPermissions.add(granted);
+            } else if (permission instanceof EJBRoleRefPermission) {
+                this.ejbRoleRefPermissions.add(granted);
+            } else {
+                // all AllPermission instances are equal, those granted to roles were merged into a single one
+                this.allPermission = granted;
+            }
+        }
+
+        private PermissionIndex build(PermissionCollection otherPermissions, PermissionCollection[] otherRolePermissions, ForkJoinPool pool) {
+            if (pool == null) {
+                return new PermissionIndex(this.allPermission, buildWebPermissions(this.webResourcePermissions, false),
+                        buildWebPermissions(this.webUserDataPermissions, true), buildRoleRefPermissions(this.webRoleRefPermissions),
+                        buildEjbMethodPermissions(this.ejbMethodPermissions), buildRoleRefPermissions(this.ejbRoleRefPermissions),
+                        otherPermissions, otherRolePermissions);
+            }
+
+            ForkJoinTask<WebPermissionIndex> webResourcePermissions = pool.submit(() -> buildWebPermissions(this.webResourcePermissions, false));
+            ForkJoinTask<WebPermissionIndex> webUserDataPermissions = pool.submit(() -> buildWebPermissions(this.webUserDataPermissions, true));
+            ForkJoinTask<RoleRefPermissionIndex> webRoleRefPermissions = pool.submit(() -> buildRoleRefPermissions(this.webRoleRefPermissions));
+            ForkJoinTask<RoleRefPermissionIndex> ejbRoleRefPermissions = pool.submit(() -> buildRoleRefPermissions(this.ejbRoleRefPermissions));
+            // the calling thread builds the EJB method permissions meanwhile
+            EjbMethodPermissionIndex ejbMethodPermissions = buildEjbMethodPermissions(this.ejbMethodPermissions);
+
+            return new PermissionIndex(this.allPermission, webResourcePermissions.join(), webUserDataPermissions.join(),
+                    webRoleRefPermissions.join(), ejbMethodPermissions, ejbRoleRefPermissions.join(), otherPermissions,
+                    otherRolePermissions);
+        }
+
+        private static WebPermissionIndex buildWebPermissions(List<GrantedPermission> permissions, boolean userData) {
+            WebPermissionIndex.Builder builder = WebPermissionIndex.builder(userData);
+
+            for (GrantedPermission permission : permissions) {
+                builder.add(permission);
+            }
+
+            return builder.build();
+        }
+
+        private static RoleRefPermissionIndex buildRoleRefPermissions(List<GrantedPermission> permissions) {
+            RoleRefPermissionIndex.Builder builder = RoleRefPermissionIndex.builder();
+
+            for (GrantedPermission permission : permissions) {
+                builder.add(permission);
+            }
+
+            return builder.build();
+        }
+
+        private static EjbMethodPermissionIndex buildEjbMethodPermissions(List<GrantedPermission> permissions) {
+            EjbMethodPermissionIndex.Builder builder = EjbMethodPermissionIndex.builder();
+
+            for (GrantedPermission permission : permissions) {
+                builder.add(permission);
+            }
+
+            return builder.build();
+        }
+    }
+}
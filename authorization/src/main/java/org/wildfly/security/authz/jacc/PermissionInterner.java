@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.lang.ref.WeakReference;
+import java.security.Permission;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import jakarta.security.jacc.EJBRoleRefPermission;
+import jakarta.security.jacc.WebResourcePermission;
+import jakarta.security.jacc.WebRoleRefPermission;
+import jakarta.security.jacc.WebUserDataPermission;
+
+/**
+ * <p>Returns a single instance for equal JACC permissions, whatever the roles and policy contexts they are granted by.
+ *
+ * <p>Applications usually grant the same permissions to several roles, and several deployments of an application grant the
+ * same permissions, so holding a single instance of each makes the memory used by policy configurations scale with the
+ * number of distinct permissions. Instances are weakly referenced, so an interned permission goes away once no policy
+ * configuration holds it.
+ *
+ * <p>Only the JACC permission types, which are immutable and compared by name and actions, are interned. Entries are spread
+ * over several maps by hash code, so that concurrent deployments rarely contend on the same lock.
+ */
+final class PermissionInterner {
+
+    private static final int STRIPE_COUNT = 16;
+
+    @SuppressWarnings("unchecked")
+    private static final Map<Permission, WeakReference<Permission>>[] STRIPES = new Map[STRIPE_COUNT];
+
+    static {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            STRIPES[i] = new WeakHashMap<>();
+        }
+    }
+
+    private PermissionInterner() {
+    }
+
+    /**
+     * Returns the instance equal to the given permission already interned, if any.
+     *
+     * @param permission the permission
+     * @return the interned permission, or the given permission if it is not a JACC permission
+     */
+    static Permission intern(Permission permission) {
+        if (!isInternable(permission)) {
+            return permission;
+        }
+
+        int hash = permission.hashCode();
+        Map<Permission, WeakReference<Permission>> stripe = STRIPES[(hash ^ hash >>> 16) & (STRIPE_COUNT - 1)];
+
+        synchronized (stripe) {
+            WeakReference<Permission> reference = stripe.get(permission);
+            Permission interned = reference == null ? null : reference.get();
+
+            if (interned == null) {
+                stripe.put(permission, new WeakReference<>(permission));
+                interned = permission;
+            }
+
+            return interned;
+        }
+    }
+
+    /**
+     * Returns whether the given permission is a JACC permission, as opposed to a subclass that may hold more state.
+     *
+     * @param permission the permission
+     * @return {@code true} if the permission is interned
+     */
+    static boolean isInternable(Permission permission) {
+        Class<?> permissionClass = permission.getClass();
+
+        return permissionClass == WebResourcePermission.class || permissionClass == WebUserDataPermission.class
+                || permissionClass == WebRoleRefPermission.class || permissionClass == EJBMethodPermission.class
+                || permissionClass == EJBRoleRefPermission.class;
+    }
+}
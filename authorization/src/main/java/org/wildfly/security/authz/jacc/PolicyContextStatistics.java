@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+/**
+ * <p>A point in time copy of the authorization statistics of a policy context, as recorded by a {@link JaccDelegatingPolicy}.
+ *
+ * <p>Checks are counted by the permissions that took the decision: the excluded permissions, the unchecked permissions, the
+ * permissions granted to the roles of the caller, the permissions of the current security identity and finally the delegate
+ * policy. Counters are read one after the other while checks are ongoing, so they are not guaranteed to be consistent with
+ * each other.
+ */
+public final class PolicyContextStatistics {
+
+    private final String contextId;
+    private final long excludedDenialCount;
+    private final long uncheckedGrantCount;
+    private final long roleGrantCount;
+    private final long identityGrantCount;
+    private final long delegateGrantCount;
+    private final long delegateDenialCount;
+    private final long[] latencyHistogram;
+    private final long totalLatency;
+
+    PolicyContextStatistics(String contextId, long excludedDenialCount, long uncheckedGrantCount, long roleGrantCount,
+            long identityGrantCount, long delegateGrantCount, long delegateDenialCount, long[] latencyHistogram, long totalLatency) {
+        this.contextId = contextId;
+        this.excludedDenialCount = excludedDenialCount;
+        this.uncheckedGrantCount = uncheckedGrantCount;
+        this.roleGrantCount = roleGrantCount;
+        this.identityGrantCount = identityGrantCount;
+        this.delegateGrantCount = delegateGrantCount;
+        this.delegateDenialCount = delegateDenialCount;
+        this.latencyHistogram = latencyHistogram;
+        this.totalLatency = totalLatency;
+    }
+
+    /**
+     * Returns the policy context identifier.
+     *
+     * @return the policy context identifier
+     */
+    public String getContextId() {
+        return this.contextId;
+    }
+
+    /**
+     * Returns the number of permissions denied because they are excluded.
+     *
+     * @return the number of denials by the excluded permissions
+     */
+    public long getExcludedDenialCount() {
+        return this.excludedDenialCount;
+    }
+
+    /**
+     * Returns the number of permissions granted because they are unchecked.
+     *
+     * @return the number of grants by the unchecked permissions
+     */
+    public long getUncheckedGrantCount() {
+        return this.uncheckedGrantCount;
+    }
+
+    /**
+     * Returns the number of permissions granted to a role of the caller.
+     *
+     * @return the number of grants by the role permissions
+     */
+    public long getRoleGrantCount() {
+        return this.roleGrantCount;
+    }
+
+    /**
+     * Returns the number of permissions granted by the permissions of the current security identity.
+     *
+     * @return the number of grants by the identity permissions
+     */
+    public long getIdentityGrantCount() {
+        return this.identityGrantCount;
+    }
+
+    /**
+     * Returns the number of permissions granted by the delegate policy.
+     *
+     * @return the number of grants by the delegate policy
+     */
+    public long getDelegateGrantCount() {
+        return this.delegateGrantCount;
+    }
+
+    /**
+     * Returns the number of permissions denied by the delegate policy.
+     *
+     * @return the number of denials by the delegate policy
+     */
+    public long getDelegateDenialCount() {
+        return this.delegateDenialCount;
+    }
+
+    /**
+     * Returns the total number of permissions granted.
+     *
+     * @return the number of grants
+     */
+    public long getGrantCount() {
+        return this.uncheckedGrantCount + this.roleGrantCount + this.identityGrantCount + this.delegateGrantCount;
+    }
+
+    /**
+     * Returns the total number of permissions denied.
+     *
+     * @return the number of denials
+     */
+    public long getDenialCount() {
+        return this.excludedDenialCount + this.delegateDenialCount;
+    }
+
+    /**
+     * Returns the histogram of the latencies of the checks. The element at index {@code i} counts the checks that took
+     * less than 2<sup>i</sup> nanoseconds and at least 2<sup>i-1</sup> nanoseconds, except the last element which counts
+     * every check that took longer.
+     *
+     * @return the number of checks per latency bucket
+     */
+    public long[] getLatencyHistogram() {
+        return this.latencyHistogram.clone();
+    }
+
+    /**
+     * Returns the sum of the latencies of the checks, in nanoseconds.
+     *
+     * @return the total latency in nanoseconds
+     */
+    public long getTotalLatency() {
+        return this.totalLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "PolicyContextStatistics{contextId=" + this.contextId + ", grants=" + getGrantCount() + ", denials=" + getDenialCount() + "}";
+    }
+}
@@ -0,0 +1,474 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.wildfly.security.authz.jacc.ElytronMessages.log;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import jakarta.security.jacc.EJBRoleRefPermission;
+import jakarta.security.jacc.WebResourcePermission;
+import jakarta.security.jacc.WebRoleRefPermission;
+import jakarta.security.jacc.WebUserDataPermission;
+
+/**
+ * <p>The permissions of a committed {@link ElytronPolicyConfiguration}, persisted so that an unchanged deployment can be put
+ * back in service on restart without translating its deployment descriptors again.
+ *
+ * <p>A snapshot file is laid out as follows, all values being big-endian:
+ * <pre>
+ *     int     magic number
+ *     int     format version
+ *     long    CRC-32 of everything that follows
+ *     string  policy context identifier
+ *     string  deployment hash
+ *     int     number of strings, followed by the strings referenced below by index
+ *     section excluded permissions
+ *     section unchecked permissions
+ *     int     number of roles, followed by the index of the name and the section of the permissions of each role
+ * </pre>
+ * where a string is an {@code int} length followed by as many UTF-8 bytes, and a section is an {@code int} number of
+ * permissions followed by, for each permission, the index of its class name, of its name and of its actions ({@code -1} if
+ * {@code null}). Class names, names and actions are held once in the string table, whatever the number of permissions that
+ * share them.
+ *
+ * <p>A snapshot is read into a heap buffer in a single pass, rather than mapped, so that no mapping outlives the read. It
+ * is only used if its format version, its checksum, its policy
+ * context identifier and its deployment hash all match, otherwise the container is expected to translate the deployment
+ * again.
+ *
+ * <p>Only the JACC permissions evaluated by {@link JaccDelegatingPolicy} can be persisted. They are reconstructed from their
+ * class name, name and actions through their public constructor taking the name and the actions, and any other class name
+ * read from a snapshot is rejected, as the checksum only detects corruption. Only permissions that are equal to their
+ * reconstruction can be persisted.
+ */
+final class PolicySnapshot {
+
+    private static final int MAGIC = 0x454C4A50; // ELJP
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int NO_STRING = -1;
+
+    private final String contextId;
+    private final PermissionCollection excludedPermissions;
+    private final PermissionCollection uncheckedPermissions;
+    private final Map<String, PermissionCollection> rolePermissions;
+
+    private PolicySnapshot(String contextId, PermissionCollection excludedPermissions, PermissionCollection uncheckedPermissions,
+            Map<String, PermissionCollection> rolePermissions) {
+        this.contextId = contextId;
+        this.excludedPermissions = excludedPermissions;
+        this.uncheckedPermissions = uncheckedPermissions;
+        this.rolePermissions = rolePermissions;
+    }
+
+    String getContextId() {
+        return this.contextId;
+    }
+
+    PermissionCollection getExcludedPermissions() {
+        return this.excludedPermissions;
+    }
+
+    PermissionCollection getUncheckedPermissions() {
+        return this.uncheckedPermissions;
+    }
+
+    Map<String, PermissionCollection> getRolePermissions() {
+        return this.rolePermissions;
+    }
+
+    /**
+     * Write the given permissions to a snapshot file. The file is first written next to its final location and then moved
+     * in place, so that a snapshot being read is never partially written. The caller must prevent concurrent modifications
+     * of the given collections while this method runs.
+     *
+     * @param file the snapshot file
+     * @param contextId the policy context identifier
+     * @param deploymentHash the hash identifying the deployment the permissions were translated from
+     * @param excludedPermissions the excluded permissions
+     * @param uncheckedPermissions the unchecked permissions
+     * @param rolePermissions the permissions granted to each role
+     * @throws IOException if the snapshot could not be written
+     * @throws IllegalArgumentException if a permission cannot be reconstructed from its class name, name and actions
+     */
+    static void write(Path file, String contextId, String deploymentHash, PermissionCollection excludedPermissions,
+            PermissionCollection uncheckedPermissions, Map<String, PermissionCollection> rolePermissions) throws IOException {
+        StringTable strings = new StringTable();
+        int[] excluded = encode(excludedPermissions, strings);
+        int[] unchecked = encode(uncheckedPermissions, strings);
+        int[] roleNames = new int[rolePermissions.size()];
+        int[][] roles = new int[roleNames.length][];
+        int i = 0;
+
+        for (Map.Entry<String, PermissionCollection> entry : rolePermissions.entrySet()) {
+            roleNames[i] = strings.indexOf(entry.getKey());
+            roles[i] = encode(entry.getValue(), strings);
+            i++;
+        }
+
+        CRC32 checksum = new CRC32();
+        ChecksumOutputStream payload = new ChecksumOutputStream(checksum);
+        // the payload is written twice, first to compute its checksum and then to the file
+        writePayload(new DataOutputStream(payload), contextId, deploymentHash, strings, excluded, unchecked, roleNames, roles);
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try {
+            try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(temporaryFile))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(checksum.getValue());
+                writePayload(output, contextId, deploymentHash, strings, excluded, unchecked, roleNames, roles);
+            }
+
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Read a snapshot file.
+     *
+     * @param file the snapshot file
+     * @param contextId the expected policy context identifier
+     * @param deploymentHash the hash identifying the current deployment
+     * @return the snapshot, or {@code null} if the file does not exist or was written for another policy context, another
+     *         deployment or another format version
+     * @throws IOException if the file could not be read or is corrupted
+     * @throws IllegalArgumentException if a permission could not be reconstructed
+     */
+    static PolicySnapshot read(Path file, String contextId, String deploymentHash) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        ByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size < HEADER_LENGTH || size > Integer.MAX_VALUE) {
+                throw log.authzCorruptedPolicySnapshot(file);
+            }
+
+            buffer = ByteBuffer.allocate((int) size);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    // the file was truncated while being read
+                    throw log.authzCorruptedPolicySnapshot(file);
+                }
+            }
+
+            buffer.flip();
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw log.authzCorruptedPolicySnapshot(file);
+            }
+
+            if (buffer.getInt() != VERSION) {
+                log.tracef("Ignoring policy snapshot [%s] written by another format version", file);
+                return null;
+            }
+
+            long expectedChecksum = buffer.getLong();
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.duplicate());
+
+            if (checksum.getValue() != expectedChecksum) {
+                throw log.authzCorruptedPolicySnapshot(file);
+            }
+
+            if (!contextId.equals(readString(buffer)) || !deploymentHash.equals(readString(buffer))) {
+                log.tracef("Ignoring policy snapshot [%s] written for another policy context or deployment", file);
+                return null;
+            }
+
+            // every string takes at least its length
+            String[] strings = new String[readCount(buffer, Integer.BYTES)];
+
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer);
+            }
+
+            PermissionFactory permissionFactory = new PermissionFactory(strings);
+            PermissionCollection excludedPermissions = readPermissions(buffer, strings, permissionFactory);
+            PermissionCollection uncheckedPermissions = readPermissions(buffer, strings, permissionFactory);
+            // every role takes at least the index of its name and its number of permissions
+            int roleCount = readCount(buffer, 2 * Integer.BYTES);
+            Map<String, PermissionCollection> rolePermissions = new LinkedHashMap<>(Math.max(16, roleCount * 2));
+
+            for (int i = 0; i < roleCount; i++) {
+                String roleName = strings[buffer.getInt()];
+                rolePermissions.put(roleName, readPermissions(buffer, strings, permissionFactory));
+            }
+
+            if (buffer.hasRemaining()) {
+                throw log.authzCorruptedPolicySnapshot(file);
+            }
+
+            return new PolicySnapshot(contextId, excludedPermissions, uncheckedPermissions, rolePermissions);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            // only possible if the checksum missed a corruption, or if the file was written by something else
+            IOException exception = log.authzCorruptedPolicySnapshot(file);
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    private static int[] encode(PermissionCollection permissions, StringTable strings) {
+        List<Permission> elements = new ArrayList<>();
+        Enumeration<Permission> enumeration = permissions.elements();
+
+        while (enumeration.hasMoreElements()) {
+            elements.add(enumeration.nextElement());
+        }
+
+        int[] encoded = new int[elements.size() * 3];
+
+        for (int i = 0; i < elements.size(); i++) {
+            Permission permission = elements.get(i);
+
+            if (!PermissionFactory.isSupported(permission.getClass())
+                    || !permission.equals(PermissionFactory.create(permission.getClass(), permission.getName(), permission.getActions()))) {
+                throw log.authzPermissionNotPersistable(permission);
+            }
+
+            encoded[i * 3] = strings.indexOf(permission.getClass().getName());
+            encoded[i * 3 + 1] = strings.indexOf(permission.getName());
+            encoded[i * 3 + 2] = strings.indexOf(permission.getActions());
+        }
+
+        return encoded;
+    }
+
+    private static void writePayload(DataOutputStream output, String contextId, String deploymentHash, StringTable strings,
+            int[] excluded, int[] unchecked, int[] roleNames, int[][] roles) throws IOException {
+        writeString(output, contextId);
+        writeString(output, deploymentHash);
+        output.writeInt(strings.size());
+
+        for (String string : strings.strings.keySet()) {
+            writeString(output, string);
+        }
+
+        writePermissions(output, excluded);
+        writePermissions(output, unchecked);
+        output.writeInt(roleNames.length);
+
+        for (int i = 0; i < roleNames.length; i++) {
+            output.writeInt(roleNames[i]);
+            writePermissions(output, roles[i]);
+        }
+
+        output.flush();
+    }
+
+    private static void writePermissions(DataOutputStream output, int[] permissions) throws IOException {
+        output.writeInt(permissions.length / 3);
+
+        for (int value : permissions) {
+            output.writeInt(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(UTF_8);
+
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static PermissionCollection readPermissions(ByteBuffer buffer, String[] strings, PermissionFactory permissionFactory) {
+        int count = readCount(buffer, 3 * Integer.BYTES);
+        Permissions permissions = new Permissions();
+
+        for (int i = 0; i < count; i++) {
+            int type = buffer.getInt();
+            String name = strings[buffer.getInt()];
+            int actions = buffer.getInt();
+
+            permissions.add(permissionFactory.create(type, name, actions == NO_STRING ? null : strings[actions]));
+        }
+
+        return permissions;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readCount(buffer, 1)];
+
+        buffer.get(bytes);
+
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Reads a number of elements, checking that the rest of the buffer can hold that many elements of at least the given
+     * size, so that a corrupted count can not cause a negative or oversized allocation.
+     *
+     * @throws BufferUnderflowException if the count is negative or larger than the rest of the buffer can hold
+     */
+    private static int readCount(ByteBuffer buffer, int minimumElementSize) {
+        int count = buffer.getInt();
+
+        if (count < 0 || count > buffer.remaining() / minimumElementSize) {
+            throw new BufferUnderflowException();
+        }
+
+        return count;
+    }
+
+    /**
+     * The distinct strings of a snapshot, in the order they were first referenced.
+     */
+    private static final class StringTable {
+
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        private int indexOf(String string) {
+            if (string == null) {
+                return NO_STRING;
+            }
+
+            return this.strings.computeIfAbsent(string, key -> this.strings.size());
+        }
+
+        private int size() {
+            return this.strings.size();
+        }
+    }
+
+    /**
+     * Creates permissions from their class name, name and actions, resolving the constructor of each class once.
+     */
+    private static final class PermissionFactory {
+
+        private static final Map<String, Class<? extends Permission>> PERMISSION_TYPES = new HashMap<>();
+
+        static {
+            for (Class<? extends Permission> type : Arrays.asList(WebResourcePermission.class, WebRoleRefPermission.class,
+                    WebUserDataPermission.class, EJBMethodPermission.class, EJBRoleRefPermission.class)) {
+                PERMISSION_TYPES.put(type.getName(), type);
+            }
+        }
+
+        private final String[] strings;
+        private final Map<Integer, Constructor<? extends Permission>> constructors = new HashMap<>();
+
+        private PermissionFactory(String[] strings) {
+            this.strings = strings;
+        }
+
+        private Permission create(int type, String name, String actions) {
+            Constructor<? extends Permission> constructor = this.constructors.computeIfAbsent(type,
+                    key -> getConstructor(loadClass(this.strings[key])));
+
+            return newInstance(constructor, name, actions);
+        }
+
+        private static Permission create(Class<? extends Permission> type, String name, String actions) {
+            return newInstance(getConstructor(type), name, actions);
+        }
+
+        private static boolean isSupported(Class<? extends Permission> type) {
+            return PERMISSION_TYPES.get(type.getName()) == type;
+        }
+
+        private static Class<? extends Permission> loadClass(String className) {
+            Class<? extends Permission> type = PERMISSION_TYPES.get(className);
+
+            if (type == null) {
+                throw log.authzUnsupportedSnapshotPermission(className);
+            }
+
+            return type;
+        }
+
+        private static Constructor<? extends Permission> getConstructor(Class<? extends Permission> type) {
+            try {
+                return type.getConstructor(String.class, String.class);
+            } catch (NoSuchMethodException e) {
+                try {
+                    return type.getConstructor(String.class);
+                } catch (NoSuchMethodException e1) {
+                    throw new IllegalArgumentException(type.getName(), e1);
+                }
+            }
+        }
+
+        private static Permission newInstance(Constructor<? extends Permission> constructor, String name, String actions) {
+            try {
+                return constructor.getParameterCount() == 2 ? constructor.newInstance(name, actions) : constructor.newInstance(name);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException(constructor.getDeclaringClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * An output stream that only updates a checksum.
+     */
+    private static final class ChecksumOutputStream extends OutputStream {
+
+        private final CRC32 checksum;
+
+        private ChecksumOutputStream(CRC32 checksum) {
+            this.checksum = checksum;
+        }
+
+        @Override
+        public void write(int b) {
+            this.checksum.update(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.checksum.update(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static org.wildfly.security.authz.jacc.SecurityActions.doPrivileged;
+
+import java.security.PrivilegedAction;
+
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.SecurityIdentity;
+
+/**
+ * <p>The {@link SecurityIdentity} of the current {@link SecurityDomain}, shared by the policy context handlers of Elytron.
+ *
+ * <p>An authorization check usually looks up several policy context handlers, and a {@link DelegatingPolicyContextHandler}
+ * checks for an identity before delegating to a handler that looks it up again. Between {@link #enter()} and {@link #exit()},
+ * the current domain and identity are resolved at most once by the current thread, and every handler reuses them. Outside of
+ * such a scope each lookup resolves them again. Scopes can be nested, the identity being resolved once for the outermost
+ * scope.
+ *
+ * <p>A scope must only span a single authorization check, during which the current identity can not change.
+ */
+final class ResolvedIdentity {
+
+    private static final ThreadLocal<Scope> SCOPE = ThreadLocal.withInitial(Scope::new);
+
+    private ResolvedIdentity() {
+    }
+
+    /**
+     * Enters a scope in which the current identity is resolved at most once. Must be followed by {@link #exit()}.
+     */
+    static void enter() {
+        SCOPE.get().depth++;
+    }
+
+    /**
+     * Exits the scope entered by the last call to {@link #enter()}.
+     */
+    static void exit() {
+        Scope scope = SCOPE.get();
+
+        if (--scope.depth == 0) {
+            scope.resolved = false;
+            scope.identity = null;
+        }
+    }
+
+    /**
+     * Returns the identity of the current security domain.
+     *
+     * @return the current identity, or {@code null} if there is no current security domain
+     */
+    static SecurityIdentity get() {
+        Scope scope = SCOPE.get();
+
+        if (scope.depth == 0) {
+            return resolve();
+        }
+
+        if (!scope.resolved) {
+            scope.identity = resolve();
+            scope.resolved = true;
+        }
+
+        return scope.identity;
+    }
+
+    private static SecurityIdentity resolve() {
+        SecurityDomain securityDomain = doPrivileged((PrivilegedAction<SecurityDomain>) SecurityDomain::getCurrent);
+
+        if (securityDomain != null) {
+            return securityDomain.getCurrentSecurityIdentity();
+        }
+
+        return null;
+    }
+
+    private static final class Scope {
+
+        private int depth;
+        private boolean resolved;
+        private SecurityIdentity identity;
+    }
+}
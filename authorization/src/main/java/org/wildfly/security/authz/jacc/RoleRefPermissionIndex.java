@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of {@link jakarta.security.jacc.EJBRoleRefPermission} or {@link jakarta.security.jacc.WebRoleRefPermission}
+ * instances keyed by name. A role reference permission only implies permissions with an equivalent name and actions, so a
+ * check only evaluates the permissions sharing its name.
+ */
+final class RoleRefPermissionIndex {
+
+    private static final GrantedPermission[] NO_PERMISSIONS = new GrantedPermission[0];
+
+    private final Map<String, GrantedPermission[]> permissions;
+
+    private RoleRefPermissionIndex(Map<String, GrantedPermission[]> permissions) {
+        this.permissions = permissions;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    boolean implies(Permission permission, long[] roles) {
+        return GrantedPermission.impliesAny(this.permissions.get(permission.getName()), permission, roles);
+    }
+
+    static final class Builder {
+
+        private final Map<String, List<GrantedPermission>> permissions = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        Builder add(GrantedPermission permission) {
+            this.permissions.computeIfAbsent(permission.getPermission().getName(), key -> new ArrayList<>()).add(permission);
+
+            return this;
+        }
+
+        RoleRefPermissionIndex build() {
+            Map<String, GrantedPermission[]> permissions = new HashMap<>();
+
+            for (Map.Entry<String, List<GrantedPermission>> entry : this.permissions.entrySet()) {
+                permissions.put(entry.getKey(), entry.getValue().toArray(NO_PERMISSIONS));
+            }
+
+            return new RoleRefPermissionIndex(permissions);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.util.Arrays;
+
+/**
+ * The roles of a caller, as a mask built by the {@link RoleTable} of a policy context. Two instances are equal when they hold
+ * the same roles, so a role set can key the decisions taken for any caller holding these roles.
+ */
+final class RoleSet {
+
+    private final long[] mask;
+    private final int hashCode;
+
+    RoleSet(long[] mask) {
+        this.mask = mask;
+        this.hashCode = Arrays.hashCode(mask);
+    }
+
+    long[] getMask() {
+        return this.mask;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof RoleSet)) {
+            return false;
+        }
+
+        RoleSet other = (RoleSet) obj;
+
+        return this.hashCode == other.hashCode && Arrays.equals(this.mask, other.mask);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>The roles of a policy context, interned into dense integer identifiers when the policy context is committed.
+ *
+ * <p>A set of roles is represented as a bitmask of {@code long} words where the bit at the position of a role identifier is
+ * set when the role is part of the set. Checking whether a caller holds any of the roles granting a permission is then a
+ * word-wise intersection of two masks, whatever the number of roles of the caller and of the policy context.
+ */
+final class RoleTable {
+
+    private static final int WORD_SHIFT = 6;
+
+    private final Map<String, Integer> identifiers;
+    private final String[] names;
+
+    private RoleTable(String[] names) {
+        this.names = names;
+        this.identifiers = new HashMap<>(Math.max(16, names.length * 2));
+
+        for (int i = 0; i < names.length; i++) {
+            this.identifiers.put(names[i], i);
+        }
+    }
+
+    /**
+     * Create a table assigning an identifier to each of the given role names, in iteration order.
+     *
+     * @param roleNames the distinct role names
+     * @return the role table
+     */
+    static RoleTable of(Collection<String> roleNames) {
+        return new RoleTable(roleNames.toArray(new String[0]));
+    }
+
+    /**
+     * Returns a table holding the roles of this table, with the same identifiers, and the given roles.
+     *
+     * @param roleNames the roles to add
+     * @return this table if it already holds all the given roles, a new table otherwise
+     */
+    RoleTable withRoles(Collection<String> roleNames) {
+        if (this.identifiers.keySet().containsAll(roleNames)) {
+            return this;
+        }
+
+        Set<String> names = new LinkedHashSet<>(Arrays.asList(this.names));
+
+        names.addAll(roleNames);
+
+        return of(names);
+    }
+
+    int size() {
+        return this.names.length;
+    }
+
+    /**
+     * Returns the identifier of the given role.
+     *
+     * @param roleName the role name
+     * @return the identifier of the role, or {@code -1} if the role is unknown to the policy context
+     */
+    int getId(String roleName) {
+        Integer id = this.identifiers.get(roleName);
+
+        return id == null ? -1 : id;
+    }
+
+    String getName(int id) {
+        return this.names[id];
+    }
+
+    /**
+     * Create an empty mask able to hold any role of this table.
+     *
+     * @return the empty mask
+     */
+    long[] newMask() {
+        return new long[(this.names.length + Long.SIZE - 1) >>> WORD_SHIFT];
+    }
+
+    /**
+     * Add the given role to the mask, if the role is known to the policy context.
+     *
+     * @param mask the mask created by {@link #newMask()}
+     * @param roleName the role name
+     */
+    void addRole(long[] mask, String roleName) {
+        int id = getId(roleName);
+
+        if (id != -1) {
+            set(mask, id);
+        }
+    }
+
+    static void set(long[] mask, int id) {
+        mask[id >>> WORD_SHIFT] |= 1L << id;
+    }
+
+    static boolean contains(long[] mask, int id) {
+        return (mask[id >>> WORD_SHIFT] & 1L << id) != 0;
+    }
+
+    static boolean intersects(long[] mask, long[] other) {
+        int length = Math.min(mask.length, other.length);
+
+        for (int i = 0; i < length; i++) {
+            if ((mask[i] & other[i]) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static boolean isEmpty(long[] mask) {
+        for (long word : mask) {
+            if (word != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static org.wildfly.security.authz.jacc.SecurityActions.doPrivileged;
+
+import java.security.PrivilegedAction;
+
+import javax.security.auth.Subject;
+
+import org.wildfly.security.auth.server.SecurityIdentity;
+
+/**
+ * <p>A cache of the read-only {@link Subject} derived from each {@link SecurityIdentity}, see
+ * {@link SubjectUtil#fromSecurityIdentity(SecurityIdentity)}.
+ *
+ * <p>A security identity is immutable, so the subject derived from it never changes. Subjects are weakly keyed by identity
+ * instance, a security identity not overriding {@link Object#equals(Object)}. A subject holds its identity as a private
+ * credential, so subjects are also weakly referenced: a subject is shared as long as it is in use, and its entry goes away
+ * with its identity.
+ */
+final class SubjectCache {
+
+    private static final WeakKeyCache<SecurityIdentity, Subject> SUBJECTS = WeakKeyCache.weakValues();
+
+    private SubjectCache() {
+    }
+
+    /**
+     * Returns the read-only subject derived from the given identity.
+     *
+     * @param securityIdentity the identity
+     * @return the read-only subject derived from the identity
+     */
+    static Subject getSubject(SecurityIdentity securityIdentity) {
+        return SUBJECTS.computeIfAbsent(securityIdentity, SubjectCache::createSubject);
+    }
+
+    private static Subject createSubject(SecurityIdentity securityIdentity) {
+        Subject subject = SubjectUtil.fromSecurityIdentity(securityIdentity);
+
+        doPrivileged((PrivilegedAction<Void>) () -> {
+            subject.setReadOnly();
+            return null;
+        });
+
+        return subject;
+    }
+}
@@ -16,19 +16,14 @@
 
 package org.wildfly.security.authz.jacc;
 
-import static org.wildfly.security.authz.jacc.SecurityActions.doPrivileged;
-import static org.wildfly.security.authz.jacc.SubjectUtil.fromSecurityIdentity;
-
-import java.security.PrivilegedAction;
-
-import org.wildfly.security.auth.server.SecurityDomain;
 import org.wildfly.security.auth.server.SecurityIdentity;
 
 import jakarta.security.jacc.PolicyContextException;
 import jakarta.security.jacc.PolicyContextHandler;
 
 /**
- * A {@code PolicyContextHandler} to return a {@code Subject} from the current {@code SecurityIdentity}.
+ * A {@code PolicyContextHandler} to return a {@code Subject} from the current {@code SecurityIdentity}. The returned
+ * {@code Subject} is read-only and shared by every lookup of the same {@code SecurityIdentity}.
  *
  * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
  */
@@ -52,19 +47,9 @@ class SubjectPolicyContextHandler implements PolicyContextHandler {
             return null;
         }
 
-        SecurityIdentity securityIdentity = getSecurityIdentity();
+        SecurityIdentity securityIdentity = ResolvedIdentity.get();
         if (securityIdentity != null) {
-            return fromSecurityIdentity(securityIdentity);
-        }
-
-        return null;
-    }
-
-    private static SecurityIdentity getSecurityIdentity() {
-        SecurityDomain securityDomain = doPrivileged((PrivilegedAction<SecurityDomain>) SecurityDomain::getCurrent);
-
-        if (securityDomain != null) {
-            return securityDomain.getCurrentSecurityIdentity();
+            return SubjectCache.getSubject(securityIdentity);
         }
 
         return null;
@@ -0,0 +1,221 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.security.authz.jacc;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <p>A cache whose keys are weakly referenced, so that an entry goes away with its key.
+ *
+ * <p>Keys are compared by identity. Entries are held by a {@link ConcurrentHashMap}, so lookups never lock, and the entries
+ * of collected keys are removed by the next operation on the cache.
+ *
+ * <p>A value must never strongly reference its key, which would keep the key reachable forever. Values referencing their
+ * key, such as a {@code Subject} holding its identity, must be weakly referenced with {@link #weakValues()}: an entry then
+ * lives as long as its value is in use, and goes away with its key. Other values are held strongly with
+ * {@link #strongValues()}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class WeakKeyCache<K, V> {
+
+    private final Map<Object, Object> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<K> collectedKeys = new ReferenceQueue<>();
+    private final boolean weakValues;
+
+    private WeakKeyCache(boolean weakValues) {
+        this.weakValues = weakValues;
+    }
+
+    /**
+     * Create a cache holding its values weakly, for values that may reference their key.
+     *
+     * @return the cache
+     */
+    static <K, V> WeakKeyCache<K, V> weakValues() {
+        return new WeakKeyCache<>(true);
+    }
+
+    /**
+     * Create a cache holding its values strongly, for values that never reference their key.
+     *
+     * @return the cache
+     */
+    static <K, V> WeakKeyCache<K, V> strongValues() {
+        return new WeakKeyCache<>(false);
+    }
+
+    /**
+     * Returns the value cached for the given key.
+     *
+     * @param key the key
+     * @return the value of the key, or {@code null} if none is cached
+     */
+    V get(K key) {
+        expungeCollectedKeys();
+        return unwrap(this.entries.get(new LookupKey(key)));
+    }
+
+    /**
+     * Returns the value cached for the given key, computing it if needed. The value is computed outside of any lock, so
+     * concurrent lookups of a new key may each compute an equivalent value.
+     *
+     * @param key the key
+     * @param mappingFunction the function computing the value of a key, which must not return {@code null}
+     * @return the value of the key
+     */
+    V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = get(key);
+
+        if (value == null) {
+            value = putIfAbsent(key, mappingFunction.apply(key));
+        }
+
+        return value;
+    }
+
+    /**
+     * Caches the given value for the given key, unless a value is already cached.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the value cached for the key, the given value if none was cached
+     */
+    V putIfAbsent(K key, V value) {
+        expungeCollectedKeys();
+
+        Object wrapped = this.weakValues ? new WeakReference<>(value) : value;
+        WeakKey<K> weakKey = new WeakKey<>(key, this.collectedKeys);
+
+        for (;;) {
+            Object existing = this.entries.putIfAbsent(weakKey, wrapped);
+
+            if (existing == null) {
+                return value;
+            }
+
+            V existingValue = unwrap(existing);
+
+            if (existingValue != null) {
+                return existingValue;
+            }
+
+            // the value was collected, replace it unless another thread just did
+            if (this.entries.replace(weakKey, existing, wrapped)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries, some of which may belong to keys collected since the last operation.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        expungeCollectedKeys();
+        return this.entries.size();
+    }
+
+    void clear() {
+        this.entries.clear();
+        expungeCollectedKeys();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        return this.weakValues ? ((Reference<V>) value).get() : (V) value;
+    }
+
+    private void expungeCollectedKeys() {
+        Reference<? extends K> collectedKey;
+
+        while ((collectedKey = this.collectedKeys.poll()) != null) {
+            this.entries.remove(collectedKey);
+        }
+    }
+
+    /**
+     * The key of an entry, equal to a {@link LookupKey} or another weak key referencing the same object.
+     */
+    private static final class WeakKey<K> extends WeakReference<K> {
+
+        private final int hashCode;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hashCode = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            Object key = get();
+
+            if (key == null) {
+                return false;
+            }
+
+            if (obj instanceof LookupKey) {
+                return ((LookupKey) obj).key == key;
+            }
+
+            return obj instanceof WeakKey && ((WeakKey<?>) obj).get() == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+    /**
+     * A strong key used to look up an entry without registering a reference.
+     */
+    private static final class LookupKey {
+
+        private final Object key;
+
+        LookupKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof WeakKey && ((WeakKey<?>) obj).get() == this.key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.key);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>An index of {@link jakarta.security.jacc.WebResourcePermission} or {@link jakarta.security.jacc.WebUserDataPermission}
+ * instances organised by the type of the first URL pattern of their name and by HTTP method.
+ *
+ * <p>When the permission being checked names an exact path, only the permissions whose first URL pattern can match that path
+ * are considered: the permissions with the same exact pattern, those with a path prefix pattern found by walking a trie from
+ * the shortest to the longest prefix of the path, those with a matching extension pattern and those with the default pattern.
+ * Each candidate is still verified with {@link Permission#implies(Permission)}, so the index never changes the outcome of a
+ * check, it only limits the number of permissions that are evaluated.
+ *
+ * <p>Unless the index holds a default, a {@code /*} or an extension pattern, a permission can only be implied by permissions
+ * whose first URL pattern starts with the same path segment. The first path segments of the patterns are then hashed into
+ * a small bitmap, which rejects most of the permissions the index does not imply before any of the above is evaluated. This
+ * is the common outcome of checking the excluded and unchecked permissions of a policy context.
+ */
+final class WebPermissionIndex {
+
+    private static final GrantedPermission[] NO_PERMISSIONS = new GrantedPermission[0];
+    private static final String DEFAULT_PATTERN = "/";
+    private static final String PREFIX_PATTERN_SUFFIX = "/*";
+    private static final String EXTENSION_PATTERN_PREFIX = "*.";
+
+    private final boolean userData;
+    private final GrantedPermission[] permissions;
+    private final Map<String, MethodBuckets> exactPatterns;
+    private final PathNode prefixPatterns;
+    private final String[] extensions;
+    private final MethodBuckets[] extensionPatterns;
+    private final MethodBuckets defaultPattern;
+    private final long[] firstSegments; // null if some pattern may imply any path
+
+    private WebPermissionIndex(Builder builder) {
+        this.userData = builder.userData;
+        this.permissions = builder.permissions.toArray(NO_PERMISSIONS);
+        this.exactPatterns = new HashMap<>(Math.max(16, builder.exactPatterns.size() * 2));
+        for (Map.Entry<String, MethodBuckets.Builder> entry : builder.exactPatterns.entrySet()) {
+            this.exactPatterns.put(entry.getKey(), entry.getValue().build());
+        }
+        this.prefixPatterns = builder.prefixPatterns.build();
+        this.extensions = builder.extensionPatterns.keySet().toArray(new String[0]);
+        this.extensionPatterns = new MethodBuckets[this.extensions.length];
+        for (int i = 0; i < this.extensions.length; i++) {
+            this.extensionPatterns[i] = builder.extensionPatterns.get(this.extensions[i]).build();
+        }
+        this.defaultPattern = builder.defaultPattern.build();
+        this.firstSegments = builder.buildFirstSegments();
+    }
+
+    /**
+     * Create a builder of an index.
+     *
+     * @param userData {@code true} if the index holds {@link jakarta.security.jacc.WebUserDataPermission} instances, whose
+     *                 actions also carry a transport type
+     * @return the builder
+     */
+    static Builder builder(boolean userData) {
+        return new Builder(userData);
+    }
+
+    boolean implies(Permission permission, long[] roles) {
+        if (this.permissions.length == 0) {
+            return false;
+        }
+
+        String path = permission.getName();
+
+        if (this.firstSegments != null && !path.isEmpty() && path.charAt(0) == '/' && !mayImplyFirstSegment(path)) {
+            return false;
+        }
+
+        if (!isExactPath(path)) {
+            // patterns or qualified names are rare in checks, evaluate them against every permission
+            return GrantedPermission.impliesAny(this.permissions, permission, roles);
+        }
+
+        String actions = permission.getActions();
+        int methodLength = getMethodLength(actions);
+
+        if (impliesAny(this.exactPatterns.get(path), actions, methodLength, permission, roles)) {
+            return true;
+        }
+
+        if (impliesPrefix(path, actions, methodLength, permission, roles)) {
+            return true;
+        }
+
+        for (int i = 0; i < this.extensions.length; i++) {
+            if (path.endsWith(this.extensions[i]) && impliesAny(this.extensionPatterns[i], actions, methodLength, permission, roles)) {
+                return true;
+            }
+        }
+
+        return impliesAny(this.defaultPattern, actions, methodLength, permission, roles);
+    }
+
+    private boolean impliesPrefix(String path, String actions, int methodLength, Permission permission, long[] roles) {
+        PathNode node = this.prefixPatterns;
+        int length = path.length();
+
+        // the node visited at position i holds the patterns whose prefix is path[0, i)
+        for (int i = 0; node != null; i++) {
+            if (node.patterns != null && (i == length || path.charAt(i) == '/')
+                    && impliesAny(node.patterns, actions, methodLength, permission, roles)) {
+                return true;
+            }
+
+            if (i == length) {
+                break;
+            }
+
+            node = node.child(path.charAt(i));
+        }
+
+        return false;
+    }
+
+    private boolean mayImplyFirstSegment(String path) {
+        int bit = firstSegmentHash(path) & (this.firstSegments.length * Long.SIZE - 1);
+
+        return (this.firstSegments[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    /**
+     * Returns the hash of the first path segment of the given URL pattern, which must start with {@code /}. The segment ends
+     * at the next {@code /} or at the {@code :} starting the qualifying patterns of a permission name.
+     */
+    private static int firstSegmentHash(String pattern) {
+        int hash = 0;
+
+        for (int i = 1; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+
+            if (c == '/' || c == ':') {
+                break;
+            }
+
+            hash = 31 * hash + c;
+        }
+
+        return hash ^ hash >>> 16;
+    }
+
+    /**
+     * Returns the length of the HTTP method named by the given actions, or {@code -1} if the actions do not name exactly
+     * one HTTP method.
+     */
+    private int getMethodLength(String actions) {
+        if (actions == null) {
+            return -1;
+        }
+
+        int length = this.userData ? actions.indexOf(':') : -1;
+
+        if (length == -1) {
+            length = actions.length();
+        }
+
+        if (length == 0 || actions.charAt(0) == '!' || actions.lastIndexOf(',', length - 1) != -1) {
+            return -1;
+        }
+
+        return length;
+    }
+
+    private static boolean isExactPath(String path) {
+        return path.length() > 1 && path.charAt(0) == '/' && !path.endsWith(PREFIX_PATTERN_SUFFIX) && path.indexOf(':') == -1;
+    }
+
+    private static boolean impliesAny(MethodBuckets buckets, String actions, int methodLength, Permission permission, long[] roles) {
+        if (buckets == null) {
+            return false;
+        }
+
+        if (GrantedPermission.impliesAny(buckets.anyMethod, permission, roles)) {
+            return true;
+        }
+
+        if (methodLength == -1) {
+            return GrantedPermission.impliesAny(buckets.methodSpecific, permission, roles);
+        }
+
+        for (int i = 0; i < buckets.methods.length; i++) {
+            String method = buckets.methods[i];
+
+            if (method.length() == methodLength && actions.startsWith(method)) {
+                return GrantedPermission.impliesAny(buckets.byMethod[i], permission, roles);
+            }
+        }
+
+        return false;
+    }
+
+    static final class Builder {
+
+        private final boolean userData;
+        private final List<GrantedPermission> permissions = new ArrayList<>();
+        private final Map<String, MethodBuckets.Builder> exactPatterns = new HashMap<>();
+        private final PathNode.Builder prefixPatterns = new PathNode.Builder();
+        private final Map<String, MethodBuckets.Builder> extensionPatterns = new LinkedHashMap<>();
+        private final MethodBuckets.Builder defaultPattern = new MethodBuckets.Builder();
+        private final Set<Integer> firstSegmentHashes = new HashSet<>();
+        private boolean impliesAnyPath;
+
+        private Builder(boolean userData) {
+            this.userData = userData;
+        }
+
+        Builder add(GrantedPermission granted) {
+            Permission permission = granted.getPermission();
+            String name = permission.getName();
+            int qualifiers = name.indexOf(':');
+            String pattern = qualifiers == -1 ? name : name.substring(0, qualifiers);
+            MethodBuckets.Builder buckets;
+
+            if (DEFAULT_PATTERN.equals(pattern) || PREFIX_PATTERN_SUFFIX.equals(pattern) || pattern.startsWith(EXTENSION_PATTERN_PREFIX)) {
+                this.impliesAnyPath = true;
+            } else if (pattern.startsWith(DEFAULT_PATTERN)) {
+                this.firstSegmentHashes.add(firstSegmentHash(pattern));
+            } else if (!pattern.isEmpty()) {
+                // not a valid URL pattern, do not make any assumption about the paths it implies
+                this.impliesAnyPath = true;
+            }
+
+            if (DEFAULT_PATTERN.equals(pattern)) {
+                buckets = this.defaultPattern;
+            } else if (pattern.endsWith(PREFIX_PATTERN_SUFFIX)) {
+                buckets = this.prefixPatterns.getOrCreate(pattern, pattern.length() - PREFIX_PATTERN_SUFFIX.length());
+            } else if (pattern.startsWith(EXTENSION_PATTERN_PREFIX)) {
+                buckets = this.extensionPatterns.computeIfAbsent(pattern.substring(1), key -> new MethodBuckets.Builder());
+            } else {
+                buckets = this.exactPatterns.computeIfAbsent(pattern, key -> new MethodBuckets.Builder());
+            }
+
+            String actions = permission.getActions();
+            String methods = actions;
+
+            if (this.userData && actions != null) {
+                int transport = actions.indexOf(':');
+                methods = transport == -1 ? actions : actions.substring(0, transport);
+            }
+
+            if (methods == null || methods.isEmpty() || methods.charAt(0) == '!') {
+                // all methods or an exception list, the permission may apply to any method
+                buckets.anyMethod.add(granted);
+            } else {
+                for (String method : methods.split(",")) {
+                    buckets.byMethod.computeIfAbsent(method, key -> new ArrayList<>()).add(granted);
+                }
+            }
+
+            this.permissions.add(granted);
+
+            return this;
+        }
+
+        WebPermissionIndex build() {
+            return new WebPermissionIndex(this);
+        }
+
+        private long[] buildFirstSegments() {
+            if (this.impliesAnyPath) {
+                return null;
+            }
+
+            // at least eight bits per segment, to keep false positives rare
+            long[] firstSegments = new long[Math.max(1, Integer.highestOneBit(this.firstSegmentHashes.size() * 8 / Long.SIZE) << 1)];
+            int mask = firstSegments.length * Long.SIZE - 1;
+
+            for (int hash : this.firstSegmentHashes) {
+                int bit = hash & mask;
+
+                firstSegments[bit >>> 6] |= 1L << bit;
+            }
+
+            return firstSegments;
+        }
+    }
+
+    private static final class MethodBuckets {
+
+        private final GrantedPermission[] anyMethod;
+        private final GrantedPermission[] methodSpecific;
+        private final String[] methods;
+        private final GrantedPermission[][] byMethod;
+
+        private MethodBuckets(Builder builder) {
+            this.anyMethod = builder.anyMethod.toArray(NO_PERMISSIONS);
+            this.methods = builder.byMethod.keySet().toArray(new String[0]);
+            this.byMethod = new GrantedPermission[this.methods.length][];
+
+            Set<GrantedPermission> methodSpecific = new LinkedHashSet<>();
+
+            for (int i = 0; i < this.methods.length; i++) {
+                List<GrantedPermission> permissions = builder.byMethod.get(this.methods[i]);
+
+                this.byMethod[i] = permissions.toArray(NO_PERMISSIONS);
+                methodSpecific.addAll(permissions);
+            }
+
+            this.methodSpecific = methodSpecific.toArray(NO_PERMISSIONS);
+        }
+
+        private static final class Builder {
+
+            private final List<GrantedPermission> anyMethod = new ArrayList<>();
+            private final Map<String, List<GrantedPermission>> byMethod = new LinkedHashMap<>();
+
+            private MethodBuckets build() {
+                return this.anyMethod.isEmpty() && this.byMethod.isEmpty() ? null : new MethodBuckets(this);
+            }
+        }
+    }
+
+    /**
+     * A node of the trie of path prefix patterns, keyed by character.
+     */
+    private static final class PathNode {
+
+        private final char[] keys;
+        private final PathNode[] children;
+        private final MethodBuckets patterns;
+
+        private PathNode(char[] keys, PathNode[] children, MethodBuckets patterns) {
+            this.keys = keys;
+            this.children = children;
+            this.patterns = patterns;
+        }
+
+        private PathNode child(char key) {
+            int low = 0;
+            int high = this.keys.length - 1;
+
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char current = this.keys[middle];
+
+                if (current < key) {
+                    low = middle + 1;
+                } else if (current > key) {
+                    high = middle - 1;
+                } else {
+                    return this.children[middle];
+                }
+            }
+
+            return null;
+        }
+
+        private static final class Builder {
+
+            private final TreeMap<Character, Builder> children = new TreeMap<>();
+            private MethodBuckets.Builder patterns;
+
+            private MethodBuckets.Builder getOrCreate(String pattern, int length) {
+                Builder node = this;
+
+                for (int i = 0; i < length; i++) {
+                    node = node.children.computeIfAbsent(pattern.charAt(i), key -> new Builder());
+                }
+
+                if (node.patterns == null) {
+                    node.patterns = new MethodBuckets.Builder();
+                }
+
+                return node.patterns;
+            }
+
+            private PathNode build() {
+                char[] keys = new char[this.children.size()];
+                PathNode[] children = new PathNode[keys.length];
+                int i = 0;
+
+                for (Map.Entry<Character, Builder> entry : this.children.entrySet()) {
+                    keys[i] = entry.getKey();
+                    children[i] = entry.getValue().build();
+                    i++;
+                }
+
+                return new PathNode(keys, children, this.patterns == null ? null : this.patterns.build());
+            }
+        }
+    }
+}
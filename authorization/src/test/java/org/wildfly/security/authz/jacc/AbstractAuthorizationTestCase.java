@@ -18,6 +18,7 @@
 package org.wildfly.security.authz.jacc;
 
 import java.io.IOException;
+import java.lang.ref.Reference;
 import java.security.Policy;
 import java.security.Principal;
 import java.security.ProtectionDomain;
@@ -110,6 +111,21 @@ public abstract class AbstractAuthorizationTestCase {
         return new ProtectionDomain(null, getClass().getProtectionDomain().getPermissions(), null, principals);
     }
 
+    /**
+     * Requests garbage collections until the referent of the given reference is collected, or gives up after a few seconds.
+     *
+     * @param reference the reference to the object expected to be collected
+     * @return {@code true} if the object was collected
+     */
+    static boolean awaitCollected(Reference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        return reference.get() == null;
+    }
+
     protected interface ConfigurePoliciesAction {
         void configure(PolicyConfiguration toConfigure) throws PolicyContextException;
     }
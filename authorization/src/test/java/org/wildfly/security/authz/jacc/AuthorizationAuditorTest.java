@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import jakarta.security.jacc.WebResourcePermission;
+
+/**
+ * Tests the sampling, batching and drop accounting of an {@link AuthorizationAuditor}.
+ */
+public class AuthorizationAuditorTest {
+
+    @Test
+    public void testDenialsAuditedByDefault() {
+        List<AuthorizationAuditEvent> events = new ArrayList<>();
+        AuthorizationAuditor auditor = AuthorizationAuditor.builder()
+                .setSink(events::addAll)
+                .build();
+
+        auditor.audit("audit-app", null, new WebResourcePermission("/denied", "GET"), false);
+        auditor.audit("audit-app", null, new WebResourcePermission("/granted", "GET"), true);
+        auditor.close();
+
+        assertEquals(1, events.size());
+        assertEquals("audit-app", events.get(0).getContextId());
+        assertEquals(new WebResourcePermission("/denied", "GET"), events.get(0).getPermission());
+        assertFalse(events.get(0).isGranted());
+        assertEquals(1, auditor.getWrittenCount());
+        assertEquals(0, auditor.getDroppedCount());
+    }
+
+    @Test
+    public void testSamplingRates() {
+        List<AuthorizationAuditEvent> events = new ArrayList<>();
+        AuthorizationAuditor auditor = AuthorizationAuditor.builder()
+                .setSink(events::addAll)
+                .setDeniedSamplingRate(0)
+                .setGrantedSamplingRate(1)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            auditor.audit("audit-app", null, new WebResourcePermission("/resource", "GET"), i % 2 == 0);
+        }
+
+        auditor.close();
+
+        assertEquals(5, events.size());
+        assertTrue(events.stream().allMatch(AuthorizationAuditEvent::isGranted));
+    }
+
+    @Test
+    public void testEventsDroppedWhenBufferFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new ArrayList<>();
+        AuthorizationAuditor auditor = AuthorizationAuditor.builder()
+                .setSink(events -> {
+                    batchSizes.add(events.size());
+                    writing.countDown();
+                    release.await();
+                })
+                .setBufferSize(2)
+                .setBatchSize(2)
+                .setFlushInterval(1, TimeUnit.MILLISECONDS)
+                .build();
+
+        auditor.audit("audit-app", null, new WebResourcePermission("/resource0", "GET"), false);
+
+        // the sink blocks the background thread, so that only two more events can be buffered
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        for (int i = 1; i <= 3; i++) {
+            auditor.audit("audit-app", null, new WebResourcePermission("/resource" + i, "GET"), false);
+        }
+
+        release.countDown();
+        auditor.close();
+
+        assertEquals(1, auditor.getDroppedCount());
+        assertEquals(3, auditor.getWrittenCount());
+        assertEquals(List.of(1, 2), batchSizes);
+    }
+
+    @Test
+    public void testEveryEventAccountedForWhenClosedConcurrently() throws Exception {
+        List<Thread> writers = new ArrayList<>();
+        AuthorizationAuditor auditor = AuthorizationAuditor.builder()
+                .setSink(events -> writers.add(Thread.currentThread()))
+                .setBufferSize(64)
+                .setBatchSize(8)
+                .build();
+        int threadCount = 4;
+        int eventCount = 10_000;
+        CountDownLatch started = new CountDownLatch(threadCount);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                started.countDown();
+
+                for (int j = 0; j < eventCount; j++) {
+                    auditor.audit("audit-app", null, new WebResourcePermission("/resource" + j, "GET"), false);
+                }
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        auditor.close();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // events audited while closing are either written or dropped, never lost
+        assertEquals(threadCount * eventCount, auditor.getWrittenCount() + auditor.getDroppedCount());
+
+        for (Thread writer : writers) {
+            assertTrue(writer.isDaemon());
+            assertNull(writer.getContextClassLoader());
+        }
+    }
+}
@@ -17,12 +17,14 @@
  */
 package org.wildfly.security.authz.jacc;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.security.PermissionCollection;
 import java.security.Policy;
+import java.security.ProtectionDomain;
 import java.security.Provider;
 import java.security.Security;
 import java.util.Collections;
@@ -200,6 +202,44 @@ public class ElytronPolicyEnforcementTest extends AbstractAuthorizationTestCase
         policyConfiguration.delete();
     }
 
+    /**
+     * Checks that repeated checks of a caller are answered from the decision cache. Whether such a check allocates depends on
+     * the JIT, so it is measured by running {@code PolicyEvaluationBenchmark} with {@code -prof gc} instead.
+     */
+    @Test
+    @SecurityIdentityRule.RunAs("user-admin")
+    public void testCachedDecisionReused() throws Exception {
+        String contextID = "allocation-app";
+        WebResourcePermission permission = new WebResourcePermission("/webResource", "HEAD");
+
+        PolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+            toConfigure.addToRole("Administrator", permission);
+        });
+
+        try {
+            policyConfiguration.commit();
+
+            PolicyContext.setContextID(contextID);
+            JaccDelegatingPolicy policy = (JaccDelegatingPolicy) Policy.getPolicy();
+            ProtectionDomain protectionDomain = createProtectionDomain();
+            int checks = 1000;
+
+            assertTrue(policy.implies(protectionDomain, permission));
+
+            long hitCount = policy.getDecisionCacheHitCount();
+            long missCount = policy.getDecisionCacheMissCount();
+
+            for (int i = 0; i < checks; i++) {
+                assertTrue(policy.implies(protectionDomain, permission));
+            }
+
+            assertEquals(hitCount + checks, policy.getDecisionCacheHitCount());
+            assertEquals(missCount, policy.getDecisionCacheMissCount());
+        } finally {
+            policyConfiguration.delete();
+        }
+    }
+
     private void addUser(Map<String, SimpleRealmEntry> securityRealm, String userName, String roles) {
         List<Credential> defaultInsecurePasswords;
 
@@ -0,0 +1,314 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.security.AllPermission;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PropertyPermission;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+
+import org.junit.Test;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import jakarta.security.jacc.EJBRoleRefPermission;
+import jakarta.security.jacc.WebResourcePermission;
+import jakarta.security.jacc.WebRoleRefPermission;
+import jakarta.security.jacc.WebUserDataPermission;
+
+/**
+ * Tests that a {@link PermissionIndex} always takes the same decisions as a {@link Permissions} collection holding the same
+ * permissions.
+ */
+public class PermissionIndexTest {
+
+    private static final String[] GRANTED_PATTERNS = {
+            "/", "/*", "/secured/*", "/secured/admin/*", "/secured/admin/index.html", "*.jsp", "*.tar.gz",
+            "/public/info.html", "/secured/*:/secured/public/*", "/api/*:*.json", "/api/v1/users"
+    };
+
+    private static final String[] GRANTED_METHODS = { null, "GET", "GET,POST", "!GET", "!DELETE,PUT", "PATCH" };
+
+    private static final String[] GRANTED_TRANSPORTS = { "", ":CONFIDENTIAL", ":NONE" };
+
+    private static final String[] CHECKED_PATHS = {
+            "/secured", "/secured/", "/secured/page.html", "/secured/admin", "/secured/admin/index.html", "/secured/public/a",
+            "/securedother/page.jsp", "/index.jsp", "/a/b/c.jsp", "/a/b.jsp/c", "/archive.tar.gz", "/api/v1/users",
+            "/api/v1/users.json", "/public/info.html", "/other", "/", "/*", "/secured/*", "*.jsp", ""
+    };
+
+    private static final String[] CHECKED_METHODS = { null, "GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "GET,POST", "!GET" };
+
+    private static final String[] GRANTED_METHOD_SPECS = {
+            null, "", "foo", "foo,Remote", "foo,Remote,java.lang.String", "foo,,java.lang.String", ",Local", "bar,Local,",
+            "foo,Local,int,java.lang.String"
+    };
+
+    private static final String[] CHECKED_METHOD_NAMES = { "", "foo", "bar", "baz" };
+
+    private static final String[] CHECKED_METHOD_INTERFACES = { "", "Remote", "Local", "Home" };
+
+    private static final String[][] CHECKED_METHOD_PARAMETERS = {
+            null, {}, { "java.lang.String" }, { "int", "java.lang.String" }
+    };
+
+    @Test
+    public void testWebResourcePermissions() {
+        for (String grantedPattern : GRANTED_PATTERNS) {
+            for (String grantedMethods : GRANTED_METHODS) {
+                Permissions permissions = new Permissions();
+
+                permissions.add(new WebResourcePermission(grantedPattern, grantedMethods));
+                permissions.add(new WebResourcePermission("/unrelated/*", "GET"));
+
+                PermissionIndex index = PermissionIndex.of(permissions);
+
+                for (String checkedPath : CHECKED_PATHS) {
+                    for (String checkedMethods : CHECKED_METHODS) {
+                        assertSameDecision(permissions, index, new WebResourcePermission(checkedPath, checkedMethods));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWebResourcePermissionsFirstSegmentFilter() {
+        for (String grantedPattern : GRANTED_PATTERNS) {
+            Permissions permissions = new Permissions();
+            List<WebResourcePermission> checkedPermissions = new ArrayList<>();
+
+            permissions.add(new WebResourcePermission(grantedPattern, "GET"));
+
+            for (int i = 0; i < 100; i++) {
+                permissions.add(new WebResourcePermission("/app" + i + "/*", "GET"));
+                permissions.add(new WebResourcePermission("/page" + i, (String) null));
+                checkedPermissions.add(new WebResourcePermission("/app" + i + "/index.html", "GET"));
+                checkedPermissions.add(new WebResourcePermission("/app" + i, "GET"));
+                checkedPermissions.add(new WebResourcePermission("/page" + i, "POST"));
+                checkedPermissions.add(new WebResourcePermission("/other" + i + "/index.html", "GET"));
+            }
+
+            PermissionIndex index = PermissionIndex.of(permissions);
+
+            for (String checkedPath : CHECKED_PATHS) {
+                checkedPermissions.add(new WebResourcePermission(checkedPath, "GET"));
+            }
+
+            for (WebResourcePermission checkedPermission : checkedPermissions) {
+                assertSameDecision(permissions, index, checkedPermission);
+            }
+        }
+    }
+
+    @Test
+    public void testWebUserDataPermissions() {
+        for (String grantedPattern : GRANTED_PATTERNS) {
+            for (String grantedMethods : GRANTED_METHODS) {
+                for (String grantedTransport : GRANTED_TRANSPORTS) {
+                    Permissions permissions = new Permissions();
+                    String grantedActions = grantedMethods == null ? grantedTransport : grantedMethods + grantedTransport;
+
+                    permissions.add(new WebUserDataPermission(grantedPattern, grantedActions.isEmpty() ? null : grantedActions));
+
+                    PermissionIndex index = PermissionIndex.of(permissions);
+
+                    for (String checkedPath : CHECKED_PATHS) {
+                        for (String checkedMethods : CHECKED_METHODS) {
+                            assertSameDecision(permissions, index, new WebUserDataPermission(checkedPath, checkedMethods));
+                            if (checkedMethods != null) {
+                                assertSameDecision(permissions, index, new WebUserDataPermission(checkedPath, checkedMethods + ":CONFIDENTIAL"));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEjbMethodPermissions() {
+        for (String grantedMethodSpec : GRANTED_METHOD_SPECS) {
+            Permissions permissions = new Permissions();
+
+            permissions.add(new EJBMethodPermission("ejb", grantedMethodSpec));
+            permissions.add(new EJBMethodPermission("other", "foo"));
+
+            PermissionIndex index = PermissionIndex.of(permissions);
+
+            for (String checkedName : new String[] { "ejb", "other", "unknown" }) {
+                for (String checkedMethodName : CHECKED_METHOD_NAMES) {
+                    for (String checkedInterface : CHECKED_METHOD_INTERFACES) {
+                        for (String[] checkedParameters : CHECKED_METHOD_PARAMETERS) {
+                            assertSameDecision(permissions, index,
+                                    new EJBMethodPermission(checkedName, checkedMethodName, checkedInterface, checkedParameters));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRoleRefPermissions() {
+        Permissions permissions = new Permissions();
+
+        permissions.add(new EJBRoleRefPermission("ejb", "admin"));
+        permissions.add(new EJBRoleRefPermission("ejb", "user"));
+        permissions.add(new WebRoleRefPermission("servlet", "admin"));
+        permissions.add(new WebRoleRefPermission("", "user"));
+
+        PermissionIndex index = PermissionIndex.of(permissions);
+
+        for (String checkedName : new String[] { "ejb", "servlet", "", "unknown" }) {
+            for (String checkedRole : new String[] { "admin", "user", "guest" }) {
+                assertSameDecision(permissions, index, new EJBRoleRefPermission(checkedName, checkedRole));
+                assertSameDecision(permissions, index, new WebRoleRefPermission(checkedName, checkedRole));
+            }
+        }
+    }
+
+    @Test
+    public void testRolePermissions() {
+        Map<String, PermissionCollection> rolePermissions = new LinkedHashMap<>();
+
+        for (int i = 0; i < 70; i++) {
+            // enough roles for the role masks to span more than one word
+            rolePermissions.put("role" + i, new Permissions());
+        }
+
+        rolePermissions.get("role0").add(new WebResourcePermission("/secured/*", "GET"));
+        rolePermissions.get("role1").add(new WebResourcePermission("/secured/*", "GET"));
+        rolePermissions.get("role1").add(new EJBMethodPermission("ejb", "foo,Remote"));
+        rolePermissions.get("role2").add(new WebResourcePermission("/secured/admin/*", (String) null));
+        rolePermissions.get("role2").add(new PropertyPermission("user.home", "read"));
+        rolePermissions.get("role65").add(new EJBMethodPermission("ejb", "bar"));
+        rolePermissions.get("role65").add(new PropertyPermission("user.*", "read,write"));
+        rolePermissions.get("role69").add(new AllPermission());
+
+        RoleTable roleTable = RoleTable.of(rolePermissions.keySet());
+        PermissionIndex index = PermissionIndex.of(rolePermissions, roleTable);
+        Permission[] checkedPermissions = {
+                new WebResourcePermission("/secured/page.html", "GET"), new WebResourcePermission("/secured/admin/page.html", "POST"),
+                new WebResourcePermission("/other", "GET"), new EJBMethodPermission("ejb", "foo,Remote"),
+                new EJBMethodPermission("ejb", "bar,Local"), new EJBMethodPermission("ejb", "baz"),
+                new PropertyPermission("user.home", "read"), new PropertyPermission("user.dir", "write")
+        };
+
+        for (String[] callerRoles : new String[][] { {}, { "role0" }, { "role1" }, { "role2" }, { "role0", "role2" },
+                { "role65" }, { "role3", "role64" }, { "role2", "role65" }, { "role69" } }) {
+            long[] roles = roleTable.newMask();
+
+            for (String callerRole : callerRoles) {
+                roleTable.addRole(roles, callerRole);
+            }
+
+            for (Permission permission : checkedPermissions) {
+                boolean expected = false;
+
+                for (String callerRole : callerRoles) {
+                    expected |= rolePermissions.get(callerRole).implies(permission);
+                }
+
+                assertEquals(permission + " checked against " + String.join(",", callerRoles), expected, index.implies(permission, roles));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelCompilation() {
+        Map<String, PermissionCollection> rolePermissions = new LinkedHashMap<>();
+        Permissions excludedPermissions = new Permissions();
+        Permissions uncheckedPermissions = new Permissions();
+
+        for (int i = 0; i < 10; i++) {
+            rolePermissions.put("role" + i, new Permissions());
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            PermissionCollection permissions = i % 10 == 0 ? excludedPermissions : i % 10 == 1 ? uncheckedPermissions
+                    : rolePermissions.get("role" + i % 7);
+
+            permissions.add(new WebResourcePermission("/resource" + i % 500 + (i % 3 == 0 ? "/*" : ""), i % 2 == 0 ? "GET" : "!POST"));
+            permissions.add(new WebUserDataPermission("/resource" + i % 400, "GET:CONFIDENTIAL"));
+            permissions.add(new EJBMethodPermission("Bean" + i % 50, "method" + i % 300 + ",Local,java.lang.String"));
+            permissions.add(new EJBRoleRefPermission("Bean" + i % 50, "ref" + i % 20));
+            permissions.add(new WebRoleRefPermission("servlet" + i % 30, "ref" + i % 20));
+        }
+
+        RoleTable roleTable = RoleTable.of(rolePermissions.keySet());
+        CompiledPolicy sequential = CompiledPolicy.compile("sequential", excludedPermissions, uncheckedPermissions, rolePermissions, roleTable,
+                UnaryOperator.identity());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        CompiledPolicy parallel;
+
+        try {
+            parallel = CompiledPolicy.compile("parallel", excludedPermissions, uncheckedPermissions, rolePermissions, roleTable,
+                    UnaryOperator.identity(), pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        long[] roles = roleTable.newMask();
+
+        roleTable.addRole(roles, "role2");
+        roleTable.addRole(roles, "role5");
+
+        for (int i = 0; i < 2500; i++) {
+            for (Permission permission : new Permission[] {
+                    new WebResourcePermission("/resource" + i % 600 + "/page", "GET"),
+                    new WebResourcePermission("/resource" + i % 600, "POST"),
+                    new WebUserDataPermission("/resource" + i % 600, "GET"),
+                    new EJBMethodPermission("Bean" + i % 60, "method" + i % 350 + ",Local,java.lang.String"),
+                    new EJBRoleRefPermission("Bean" + i % 60, "ref" + i % 25),
+                    new WebRoleRefPermission("servlet" + i % 35, "ref" + i % 25) }) {
+                assertEquals(permission.toString(), sequential.impliesExcluded(permission), parallel.impliesExcluded(permission));
+                assertEquals(permission.toString(), sequential.impliesUnchecked(permission), parallel.impliesUnchecked(permission));
+                assertEquals(permission.toString(), sequential.impliesRole(roles, permission), parallel.impliesRole(roles, permission));
+            }
+        }
+    }
+
+    @Test
+    public void testAllPermission() {
+        Permissions permissions = new Permissions();
+
+        permissions.add(new AllPermission());
+
+        PermissionIndex index = PermissionIndex.of(permissions);
+
+        assertTrue(index.implies(new WebResourcePermission("/secured/page.html", "GET")));
+        assertTrue(index.implies(new WebUserDataPermission("/secured/page.html", "GET:CONFIDENTIAL")));
+        assertTrue(index.implies(new EJBMethodPermission("ejb", "foo,Remote")));
+        assertTrue(index.implies(new EJBRoleRefPermission("ejb", "admin")));
+    }
+
+    private static void assertSameDecision(Permissions permissions, PermissionIndex index, Permission permission) {
+        assertEquals(permission + " checked against " + permissions, permissions.implies(permission), index.implies(permission));
+    }
+}
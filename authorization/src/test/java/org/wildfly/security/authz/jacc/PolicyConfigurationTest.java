@@ -18,14 +18,52 @@
 package org.wildfly.security.authz.jacc;
 
 import static java.security.AccessController.doPrivileged;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Permission;
 import java.security.PermissionCollection;
+import java.security.Permissions;
 import java.security.Policy;
 import java.security.PrivilegedAction;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PropertyPermission;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
 
 import org.hamcrest.core.IsInstanceOf;
 import org.hamcrest.core.IsSame;
@@ -33,10 +71,14 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.wildfly.security.auth.principal.NamePrincipal;
 
+import jakarta.security.jacc.EJBMethodPermission;
 import jakarta.security.jacc.PolicyConfiguration;
 import jakarta.security.jacc.PolicyConfigurationFactory;
 import jakarta.security.jacc.PolicyContext;
+import jakarta.security.jacc.PolicyContextException;
 import jakarta.security.jacc.WebResourcePermission;
+import jakarta.security.jacc.WebRoleRefPermission;
+import jakarta.security.jacc.WebUserDataPermission;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -109,6 +151,771 @@ public class PolicyConfigurationTest extends AbstractAuthorizationTestCase {
         policyConfiguration.delete();
     }
 
+    @Test
+    public void testCommitPublishesSnapshot() throws Exception {
+        final WebResourcePermission dynamicPermission1 = new WebResourcePermission("/webResource", "GET");
+        final WebResourcePermission dynamicPermission2 = new WebResourcePermission("/webResource", "PUT");
+        String contextID = "snapshot-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToUncheckedPolicy(dynamicPermission1);
+                }
+        );
+
+        // nothing is published while the configuration is open
+        assertNull(policyConfiguration.getCompiledPolicy());
+
+        policyConfiguration.commit();
+
+        CompiledPolicy compiledPolicy = policyConfiguration.getCompiledPolicy();
+
+        assertNotNull(compiledPolicy);
+        assertTrue(compiledPolicy.impliesUnchecked(dynamicPermission1));
+        assertFalse(compiledPolicy.impliesUnchecked(dynamicPermission2));
+
+        ElytronPolicyConfiguration openPolicyConfiguration = createPolicyConfiguration(contextID);
+
+        assertNull(openPolicyConfiguration.getCompiledPolicy());
+
+        // changes made while open never leak into a previously published snapshot
+        openPolicyConfiguration.addToUncheckedPolicy(dynamicPermission2);
+
+        assertFalse(compiledPolicy.impliesUnchecked(dynamicPermission2));
+
+        openPolicyConfiguration.commit();
+
+        assertTrue(openPolicyConfiguration.getCompiledPolicy().impliesUnchecked(dynamicPermission2));
+
+        openPolicyConfiguration.delete();
+
+        assertNull(openPolicyConfiguration.getCompiledPolicy());
+    }
+
+    @Test
+    public void testLinkedPoliciesShareRoleTable() throws Exception {
+        final WebResourcePermission webPermission = new WebResourcePermission("/linkedResource", "GET");
+        ElytronPolicyConfiguration webPolicyConfiguration = createPolicyConfiguration("linked-web-app", toConfigure -> {
+                    toConfigure.addToRole("Administrator", webPermission);
+                }
+        );
+        ElytronPolicyConfiguration ejbPolicyConfiguration = createPolicyConfiguration("linked-ejb-app", toConfigure -> {
+                    toConfigure.addToRole("Manager", new WebResourcePermission("/linkedResource", "GET"));
+                }
+        );
+
+        webPolicyConfiguration.linkConfiguration(ejbPolicyConfiguration);
+        webPolicyConfiguration.commit();
+        ejbPolicyConfiguration.commit();
+
+        CompiledPolicy webPolicy = webPolicyConfiguration.getCompiledPolicy();
+        CompiledPolicy ejbPolicy = ejbPolicyConfiguration.getCompiledPolicy();
+
+        assertSame(webPolicy.getRoleTable(), ejbPolicy.getRoleTable());
+
+        RoleTable roleTable = webPolicy.getRoleTable();
+        long[] administrator = roleTable.newMask();
+
+        roleTable.addRole(administrator, "Administrator");
+
+        // permissions are still granted per policy context
+        assertTrue(webPolicy.impliesRole(administrator, webPermission));
+        assertFalse(ejbPolicy.impliesRole(administrator, webPermission));
+
+        webPolicyConfiguration.delete();
+        ejbPolicyConfiguration.delete();
+    }
+
+    @Test
+    public void testPermissionsInternedAcrossRolesAndContexts() throws Exception {
+        final int contextCount = 10;
+        final int roleCount = 10;
+        final int permissionCount = 50;
+        List<ElytronPolicyConfiguration> policyConfigurations = new ArrayList<>();
+
+        for (int i = 0; i < contextCount; i++) {
+            policyConfigurations.add(createPolicyConfiguration("interned-app-" + i, toConfigure -> {
+                for (int role = 0; role < roleCount; role++) {
+                    for (int permission = 0; permission < permissionCount; permission++) {
+                        // a new instance each time, as containers translate each constraint separately
+                        toConfigure.addToRole("Role" + role, new WebResourcePermission("/interned/" + permission, "GET"));
+                        toConfigure.addToRole("Role" + role, new EJBMethodPermission("InternedBean", "method" + permission, "Local", null));
+                    }
+                }
+                toConfigure.addToRole("Role0", new PropertyPermission("interned", "read"));
+            }));
+        }
+
+        Set<Permission> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        int heldCount = 0;
+
+        for (ElytronPolicyConfiguration policyConfiguration : policyConfigurations) {
+            policyConfiguration.commit();
+
+            for (PermissionCollection permissions : policyConfiguration.getPerRolePermissions().values()) {
+                for (Permission permission : Collections.list(permissions.elements())) {
+                    if (!(permission instanceof PropertyPermission)) {
+                        instances.add(permission);
+                        heldCount++;
+                    }
+                }
+            }
+        }
+
+        int addedCount = contextCount * roleCount * permissionCount * 2;
+
+        assertEquals(addedCount, heldCount);
+        assertEquals("Permission instances held for " + addedCount + " grants", permissionCount * 2, instances.size());
+
+        ElytronPolicyConfiguration policyConfiguration = policyConfigurations.get(0);
+        PermissionCollection role0 = policyConfiguration.getPerRolePermissions().get("Role0");
+
+        // duplicates are skipped and permissions other than JACC permissions are kept as is
+        assertTrue(role0.implies(new PropertyPermission("interned", "read")));
+        assertTrue(role0.implies(new WebResourcePermission("/interned/0", "GET")));
+        assertFalse(role0.implies(new WebResourcePermission("/interned/0", "POST")));
+
+        for (ElytronPolicyConfiguration toDelete : policyConfigurations) {
+            toDelete.delete();
+        }
+    }
+
+    @Test
+    public void testCurrentCompiledPolicyRequiresInService() throws Exception {
+        String contextID = "current-snapshot-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID);
+
+        PolicyContext.setContextID(contextID);
+
+        assertCurrentCompiledPolicyUnavailable();
+
+        policyConfiguration.commit();
+
+        assertSame(policyConfiguration.getCompiledPolicy(), ElytronPolicyConfigurationFactory.getCurrentCompiledPolicy());
+
+        createPolicyConfiguration(contextID);
+
+        assertCurrentCompiledPolicyUnavailable();
+
+        policyConfiguration.commit();
+        policyConfiguration.delete();
+
+        assertCurrentCompiledPolicyUnavailable();
+    }
+
+    @Test
+    public void testDecisionCacheInvalidatedOnCommit() throws Exception {
+        final WebResourcePermission dynamicPermission = new WebResourcePermission("/cachedResource", "GET");
+        String contextID = "decision-cache-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToRole("Administrator", dynamicPermission);
+                }
+        );
+
+        policyConfiguration.commit();
+
+        PolicyContext.setContextID(contextID);
+
+        JaccDelegatingPolicy policy = (JaccDelegatingPolicy) doPrivileged((PrivilegedAction<Policy>) Policy::getPolicy);
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"));
+        long hitCount = policy.getDecisionCacheHitCount();
+
+        assertTrue(policy.implies(protectionDomain, dynamicPermission));
+        assertTrue(policy.implies(protectionDomain, new WebResourcePermission("/cachedResource", "GET")));
+        assertEquals(hitCount + 1, policy.getDecisionCacheHitCount());
+
+        ElytronPolicyConfiguration openPolicyConfiguration = createPolicyConfiguration(contextID);
+
+        openPolicyConfiguration.removeRole("Administrator");
+        openPolicyConfiguration.commit();
+
+        // the new snapshot must not be answered from decisions taken by the previous one
+        assertFalse(policy.implies(protectionDomain, dynamicPermission));
+
+        openPolicyConfiguration.delete();
+    }
+
+    @Test
+    public void testDecisionCacheEvictionAndPruning() throws Exception {
+        String contextID = "decision-eviction-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToRole("Administrator", new WebResourcePermission("/admin/*", "GET"));
+                }
+        );
+
+        policyConfiguration.commit();
+
+        CompiledPolicy compiledPolicy = policyConfiguration.getCompiledPolicy();
+        RoleSet roles = new RoleSet(compiledPolicy.getRoleTable().newMask());
+        DecisionCache decisionCache = new DecisionCache(4);
+
+        for (int i = 0; i < 6; i++) {
+            decisionCache.put(compiledPolicy, roles, new WebResourcePermission("/admin/" + i, "GET"), DecisionCache.Decision.GRANTED_BY_ROLE);
+        }
+
+        // the oldest decisions are evicted first, the most recent ones are kept
+        assertNull(decisionCache.get(compiledPolicy, roles, new WebResourcePermission("/admin/0", "GET")));
+        assertNull(decisionCache.get(compiledPolicy, roles, new WebResourcePermission("/admin/1", "GET")));
+
+        for (int i = 2; i < 6; i++) {
+            assertEquals(DecisionCache.Decision.GRANTED_BY_ROLE, decisionCache.get(compiledPolicy, roles, new WebResourcePermission("/admin/" + i, "GET")));
+        }
+
+        decisionCache.prune();
+        assertEquals(1, decisionCache.getContextCount());
+
+        policyConfiguration.delete();
+
+        // the snapshot of a deleted policy context is not retained
+        decisionCache.prune();
+        assertEquals(0, decisionCache.getContextCount());
+    }
+
+    @Test
+    public void testCallerRolesDoNotRetainCaller() throws Exception {
+        String contextID = "caller-roles-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToRole("Clerk", new WebResourcePermission("/clerk", "GET"));
+                }
+        );
+
+        policyConfiguration.commit();
+
+        PolicyContext.setContextID(contextID);
+
+        JaccDelegatingPolicy policy = new JaccDelegatingPolicy(new Policy() {
+        }, 0);
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Clerk"));
+        WeakReference<ProtectionDomain> reference = new WeakReference<>(protectionDomain);
+
+        assertTrue(policy.implies(protectionDomain, new WebResourcePermission("/clerk", "GET")));
+        assertTrue(policy.implies(protectionDomain, new WebResourcePermission("/clerk", "GET")));
+
+        protectionDomain = null;
+
+        // the roles cached for the last caller of the thread must not keep its protection domain alive
+        assertTrue(awaitCollected(reference));
+
+        assertFalse(policy.implies(createProtectionDomain(), new WebResourcePermission("/clerk", "GET")));
+
+        policyConfiguration.delete();
+    }
+
+    @Test
+    public void testAuthorizationStatistics() throws Exception {
+        String contextID = "statistics-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToExcludedPolicy(new WebResourcePermission("/excluded", "GET"));
+                    toConfigure.addToUncheckedPolicy(new WebResourcePermission("/unchecked", "GET"));
+                    toConfigure.addToRole("Administrator", new WebResourcePermission("/admin", "GET"));
+                }
+        );
+
+        policyConfiguration.commit();
+
+        PolicyContext.setContextID(contextID);
+
+        JaccDelegatingPolicy policy = new JaccDelegatingPolicy(new Policy() {
+            @Override
+            public boolean implies(ProtectionDomain domain, Permission permission) {
+                return false;
+            }
+        });
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"));
+
+        assertNull(policy.getStatistics(contextID));
+        assertFalse(policy.implies(protectionDomain, new WebResourcePermission("/excluded", "GET")));
+        assertTrue(policy.implies(protectionDomain, new WebResourcePermission("/unchecked", "GET")));
+        assertTrue(policy.implies(protectionDomain, new WebResourcePermission("/admin", "GET")));
+        assertTrue(policy.implies(protectionDomain, new WebResourcePermission("/admin", "GET")));
+        assertFalse(policy.implies(protectionDomain, new WebResourcePermission("/other", "GET")));
+        // permissions other than JACC permissions are not recorded
+        assertFalse(policy.implies(protectionDomain, new PropertyPermission("user.dir", "read")));
+
+        PolicyContextStatistics statistics = policy.getStatistics(contextID);
+
+        assertEquals(contextID, statistics.getContextId());
+        assertEquals(1, statistics.getExcludedDenialCount());
+        assertEquals(1, statistics.getUncheckedGrantCount());
+        assertEquals(2, statistics.getRoleGrantCount());
+        assertEquals(0, statistics.getDelegateGrantCount());
+        assertEquals(1, statistics.getDelegateDenialCount());
+        assertEquals(3, statistics.getGrantCount());
+        assertEquals(2, statistics.getDenialCount());
+        assertEquals(5, Arrays.stream(statistics.getLatencyHistogram()).sum());
+        assertEquals(1, policy.getPolicyContextStatistics().size());
+
+        policy.registerStatisticsMBean();
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(AuthorizationStatisticsMXBean.OBJECT_NAME);
+            CompositeData compositeData = (CompositeData) server.invoke(objectName, "getStatistics", new Object[] { contextID },
+                    new String[] { String.class.getName() });
+
+            assertEquals(2L, compositeData.get("roleGrantCount"));
+            // only the statistics are exposed, not the policy
+            assertFalse(server.isInstanceOf(objectName, Policy.class.getName()));
+
+            // another policy registers its statistics under another name, and unregistering them leaves these in place
+            JaccDelegatingPolicy otherPolicy = new JaccDelegatingPolicy(policy);
+            ObjectName otherObjectName = new ObjectName(AuthorizationStatisticsMXBean.OBJECT_NAME + ",name=other");
+
+            otherPolicy.registerStatisticsMBean(otherObjectName);
+            otherPolicy.unregisterStatisticsMBean();
+            otherPolicy.unregisterStatisticsMBean();
+
+            assertFalse(server.isRegistered(otherObjectName));
+            assertTrue(server.isRegistered(objectName));
+        } finally {
+            policy.unregisterStatisticsMBean();
+        }
+
+        policy.resetStatistics();
+
+        assertNull(policy.getStatistics(contextID));
+        assertTrue(policy.implies(protectionDomain, new WebResourcePermission("/admin", "GET")));
+        assertNotNull(policy.getStatistics(contextID));
+
+        policyConfiguration.delete();
+
+        // the statistics of a deleted policy context are dropped
+        assertNull(policy.getStatistics(contextID));
+    }
+
+    @Test
+    public void testBulkImplies() throws Exception {
+        String contextID = "bulk-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToExcludedPolicy(new WebResourcePermission("/excluded", "GET"));
+                    toConfigure.addToUncheckedPolicy(new WebResourcePermission("/unchecked", "GET"));
+                    toConfigure.addToRole("Administrator", new WebResourcePermission("/admin", "GET,POST"));
+                    toConfigure.addToRole("Administrator", new EJBMethodPermission("AdminBean", "run,Local,"));
+                }
+        );
+
+        policyConfiguration.commit();
+
+        PolicyContext.setContextID(contextID);
+
+        JaccDelegatingPolicy policy = (JaccDelegatingPolicy) doPrivileged((PrivilegedAction<Policy>) Policy::getPolicy);
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"));
+        List<Permission> permissions = Arrays.asList(
+                new WebResourcePermission("/admin", "GET"),
+                new WebResourcePermission("/admin", "POST"),
+                new WebResourcePermission("/admin", "DELETE"),
+                new WebResourcePermission("/excluded", "GET"),
+                new WebResourcePermission("/unchecked", "GET"),
+                new EJBMethodPermission("AdminBean", "run,Local,"),
+                new EJBMethodPermission("OtherBean", "run,Local,"));
+        BitSet results = policy.implies(protectionDomain, permissions);
+
+        for (int i = 0; i < permissions.size(); i++) {
+            assertEquals(permissions.get(i).toString(), policy.implies(protectionDomain, permissions.get(i)), results.get(i));
+        }
+
+        assertEquals(4, results.cardinality());
+        assertTrue(policy.implies(protectionDomain, Collections.emptyList()).isEmpty());
+
+        policyConfiguration.delete();
+    }
+
+    @Test
+    public void testExplainDecision() throws Exception {
+        String contextID = "explain-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToExcludedPolicy(new WebResourcePermission("/excluded", "GET"));
+                    toConfigure.addToUncheckedPolicy(new WebResourcePermission("/unchecked", "GET"));
+                    toConfigure.addToRole("Administrator", new WebResourcePermission("/admin", "GET"));
+                    toConfigure.addToRole("Manager", new WebResourcePermission("/admin", "GET"));
+                    toConfigure.addToRole("Manager", new WebResourcePermission("/manager", "GET"));
+                    toConfigure.addToRole("Auditor", new WebResourcePermission("/admin", "GET"));
+                }
+        );
+
+        policyConfiguration.commit();
+
+        PolicyContext.setContextID(contextID);
+
+        JaccDelegatingPolicy policy = (JaccDelegatingPolicy) doPrivileged((PrivilegedAction<Policy>) Policy::getPolicy);
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"), new NamePrincipal("Manager"));
+
+        AuthorizationExplanation explanation = policy.explain(protectionDomain, new WebResourcePermission("/excluded", "GET"));
+
+        assertEquals(AuthorizationExplanation.Stage.EXCLUDED, explanation.getStage());
+        assertFalse(explanation.isGranted());
+        assertEquals(contextID, explanation.getContextId());
+
+        explanation = policy.explain(protectionDomain, new WebResourcePermission("/unchecked", "GET"));
+
+        assertEquals(AuthorizationExplanation.Stage.UNCHECKED, explanation.getStage());
+        assertTrue(explanation.isGranted());
+
+        explanation = policy.explain(protectionDomain, new WebResourcePermission("/admin", "GET"));
+
+        assertEquals(AuthorizationExplanation.Stage.ROLE, explanation.getStage());
+        assertTrue(explanation.isGranted());
+        assertEquals(new HashSet<>(Arrays.asList("Administrator", "Manager")), explanation.getCallerRoles());
+        assertEquals(new HashSet<>(Arrays.asList("Administrator", "Manager")), explanation.getGrantingRoles());
+
+        try {
+            explanation.getGrantingRoles().add("Clerk");
+            fail("Expected the granting roles to be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        explanation = policy.explain(protectionDomain, new WebResourcePermission("/manager", "GET"));
+
+        assertEquals(Collections.singleton("Manager"), explanation.getGrantingRoles());
+
+        explanation = policy.explain(protectionDomain, new WebResourcePermission("/other", "GET"));
+
+        assertEquals(AuthorizationExplanation.Stage.DELEGATE, explanation.getStage());
+        assertEquals(policy.implies(protectionDomain, new WebResourcePermission("/other", "GET")), explanation.isGranted());
+        assertTrue(explanation.getGrantingRoles().isEmpty());
+        assertNull(explanation.getFailure());
+
+        // as when checking, the roles of a missing domain can't be obtained and the delegate decides
+        explanation = policy.explain(null, new WebResourcePermission("/admin", "GET"));
+
+        assertEquals(AuthorizationExplanation.Stage.DELEGATE, explanation.getStage());
+        assertEquals(policy.implies(null, new WebResourcePermission("/admin", "GET")), explanation.isGranted());
+        assertTrue(explanation.getCallerRoles().isEmpty());
+        assertNotNull(explanation.getFailure());
+
+        explanation = policy.explain(protectionDomain, new PropertyPermission("java.version", "read"));
+
+        assertEquals(AuthorizationExplanation.Stage.DELEGATE, explanation.getStage());
+        assertNull(explanation.getContextId());
+
+        // explaining a decision is neither recorded nor cached
+        PolicyContextStatistics statistics = policy.getStatistics(contextID);
+
+        policy.explain(protectionDomain, new WebResourcePermission("/admin", "GET"));
+
+        assertEquals(statistics.getRoleGrantCount(), policy.getStatistics(contextID).getRoleGrantCount());
+
+        policyConfiguration.delete();
+    }
+
+    @Test
+    public void testPermissionsCachedPerDomain() throws Exception {
+        AtomicInteger delegateCallCount = new AtomicInteger();
+        JaccDelegatingPolicy policy = new JaccDelegatingPolicy(new Policy() {
+            @Override
+            public PermissionCollection getPermissions(ProtectionDomain domain) {
+                delegateCallCount.incrementAndGet();
+                Permissions permissions = new Permissions();
+                permissions.add(new RuntimePermission("granted"));
+                permissions.setReadOnly();
+                return permissions;
+            }
+
+            @Override
+            public boolean implies(ProtectionDomain domain, Permission permission) {
+                return false;
+            }
+        });
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"));
+        PermissionCollection permissions = policy.getPermissions(protectionDomain);
+        PermissionCollection otherPermissions = policy.getPermissions(protectionDomain);
+
+        assertNotSame(permissions, otherPermissions);
+        assertEquals(1, delegateCallCount.get());
+        assertTrue(otherPermissions.implies(new RuntimePermission("granted")));
+
+        permissions.add(new RuntimePermission("added"));
+
+        assertTrue(permissions.implies(new RuntimePermission("added")));
+        assertFalse(otherPermissions.implies(new RuntimePermission("added")));
+        assertFalse(policy.getPermissions(protectionDomain).implies(new RuntimePermission("added")));
+
+        policy.getPermissions(createProtectionDomain(new NamePrincipal("Administrator")));
+
+        assertEquals(2, delegateCallCount.get());
+
+        policy.refresh();
+        policy.getPermissions(protectionDomain);
+
+        assertEquals(3, delegateCallCount.get());
+    }
+
+    @Test
+    public void testPermissionsOfDynamicDelegateNotCached() throws Exception {
+        Permissions delegatePermissions = new Permissions();
+        JaccDelegatingPolicy policy = new JaccDelegatingPolicy(new Policy() {
+            @Override
+            public PermissionCollection getPermissions(ProtectionDomain domain) {
+                return delegatePermissions;
+            }
+
+            @Override
+            public boolean implies(ProtectionDomain domain, Permission permission) {
+                return false;
+            }
+        });
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"));
+
+        assertFalse(policy.getPermissions(protectionDomain).implies(new RuntimePermission("granted")));
+
+        // the delegate grants a permission without this policy being refreshed
+        delegatePermissions.add(new RuntimePermission("granted"));
+
+        assertTrue(policy.getPermissions(protectionDomain).implies(new RuntimePermission("granted")));
+
+        // permissions are added to the collection of the delegate, as it is not shared
+        policy.getPermissions(protectionDomain).add(new RuntimePermission("added"));
+
+        assertTrue(delegatePermissions.implies(new RuntimePermission("added")));
+    }
+
+    @Test
+    public void testDelegateGrantsCached() throws Exception {
+        AtomicInteger delegateCheckCount = new AtomicInteger();
+        JaccDelegatingPolicy policy = new JaccDelegatingPolicy(new Policy() {
+            @Override
+            public boolean implies(ProtectionDomain domain, Permission permission) {
+                delegateCheckCount.incrementAndGet();
+                return permission.getName().equals("granted");
+            }
+        }, 0, 16);
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"));
+
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("granted")));
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("granted")));
+        assertEquals(1, delegateCheckCount.get());
+
+        // denials are not cached
+        assertFalse(policy.implies(protectionDomain, new RuntimePermission("denied")));
+        assertFalse(policy.implies(protectionDomain, new RuntimePermission("denied")));
+        assertEquals(3, delegateCheckCount.get());
+
+        policy.refresh();
+
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("granted")));
+        assertEquals(4, delegateCheckCount.get());
+    }
+
+    @Test
+    public void testOldestDelegateGrantEvicted() throws Exception {
+        AtomicInteger delegateCheckCount = new AtomicInteger();
+        JaccDelegatingPolicy policy = new JaccDelegatingPolicy(new Policy() {
+            @Override
+            public boolean implies(ProtectionDomain domain, Permission permission) {
+                delegateCheckCount.incrementAndGet();
+                return true;
+            }
+        }, 0, 2);
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"));
+
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("first")));
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("second")));
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("third")));
+        assertEquals(3, delegateCheckCount.get());
+
+        // only the oldest grant was evicted
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("third")));
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("second")));
+        assertEquals(3, delegateCheckCount.get());
+
+        assertTrue(policy.implies(protectionDomain, new RuntimePermission("first")));
+        assertEquals(4, delegateCheckCount.get());
+    }
+
+    @Test
+    public void testReplacePolicyConfiguration() throws Exception {
+        final WebResourcePermission oldPermission = new WebResourcePermission("/oldResource", "GET");
+        final WebResourcePermission newPermission = new WebResourcePermission("/newResource", "GET");
+        String contextID = "replaced-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToRole("Administrator", oldPermission);
+                }
+        );
+
+        policyConfiguration.commit();
+
+        PolicyContext.setContextID(contextID);
+
+        Policy policy = doPrivileged((PrivilegedAction<Policy>) Policy::getPolicy);
+        ProtectionDomain protectionDomain = createProtectionDomain(new NamePrincipal("Administrator"));
+        ElytronPolicyConfigurationFactory policyConfigurationFactory = (ElytronPolicyConfigurationFactory) PolicyConfigurationFactory.getPolicyConfigurationFactory();
+        PolicyConfiguration replacement = policyConfigurationFactory.getReplacementPolicyConfiguration(contextID);
+
+        replacement.addToRole("Administrator", newPermission);
+
+        // the current configuration stays in service while the replacement is configured
+        assertTrue(policyConfigurationFactory.inService(contextID));
+        assertTrue(policy.implies(protectionDomain, oldPermission));
+        assertFalse(policy.implies(protectionDomain, newPermission));
+
+        replacement.commit();
+
+        assertTrue(policyConfigurationFactory.inService(contextID));
+        assertFalse(policy.implies(protectionDomain, oldPermission));
+        assertTrue(policy.implies(protectionDomain, newPermission));
+        assertFalse(policyConfiguration.inService());
+        assertSame(replacement, policyConfigurationFactory.getPolicyConfiguration(contextID, false));
+
+        replacement.delete();
+    }
+
+    @Test
+    public void testReplacementDeletedWhenReplacedConcurrently() throws Exception {
+        String contextID = "concurrently-replaced-app";
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToRole("Administrator", new WebResourcePermission("/oldResource", "GET"));
+                }
+        );
+
+        policyConfiguration.commit();
+
+        ElytronPolicyConfigurationFactory policyConfigurationFactory = (ElytronPolicyConfigurationFactory) PolicyConfigurationFactory.getPolicyConfigurationFactory();
+        PolicyConfiguration replacement = policyConfigurationFactory.getReplacementPolicyConfiguration(contextID);
+        PolicyConfiguration concurrentReplacement = policyConfigurationFactory.getReplacementPolicyConfiguration(contextID);
+
+        concurrentReplacement.commit();
+
+        try {
+            replacement.commit();
+            fail("Expected a PolicyContextException");
+        } catch (PolicyContextException expected) {
+        }
+
+        assertFalse(replacement.inService());
+        assertTrue(concurrentReplacement.inService());
+        assertSame(concurrentReplacement, policyConfigurationFactory.getPolicyConfiguration(contextID, false));
+
+        try {
+            replacement.commit();
+            fail("Expected the replacement to be deleted");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        concurrentReplacement.delete();
+    }
+
+    @Test
+    public void testReplacementKeepsConfigurationCommittedWhileRequested() throws Exception {
+        String contextID = "committed-while-replaced-app";
+        WebResourcePermission permission = new WebResourcePermission("/resource", "GET");
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration(contextID, toConfigure -> {
+                    toConfigure.addToUncheckedPolicy(permission);
+                }
+        );
+        ElytronPolicyConfigurationFactory policyConfigurationFactory = (ElytronPolicyConfigurationFactory) PolicyConfigurationFactory.getPolicyConfigurationFactory();
+        AtomicReference<PolicyConfiguration> replacement = new AtomicReference<>();
+        Thread replacingThread = new Thread(() -> {
+            try {
+                replacement.set(policyConfigurationFactory.getReplacementPolicyConfiguration(contextID));
+            } catch (PolicyContextException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        synchronized (policyConfiguration) {
+            replacingThread.start();
+
+            while (replacingThread.getState() != Thread.State.BLOCKED) {
+                Thread.sleep(1);
+            }
+
+            // committed while the replacement is requested, after the configuration was found not in service
+            policyConfiguration.commit();
+        }
+
+        replacingThread.join();
+
+        assertTrue(policyConfiguration.inService());
+        assertTrue(policyConfiguration.getCompiledPolicy().impliesUnchecked(permission));
+        assertNotSame(policyConfiguration, replacement.get());
+        assertFalse(replacement.get().inService());
+
+        replacement.get().delete();
+        policyConfiguration.delete();
+    }
+
+    @Test
+    public void testConcurrentRegistryChanges() throws Exception {
+        ElytronPolicyConfigurationFactory policyConfigurationFactory = (ElytronPolicyConfigurationFactory) PolicyConfigurationFactory.getPolicyConfigurationFactory();
+        int threadCount = 8;
+        // more contexts than lock stripes, so that unrelated contexts share stripes
+        int contextsPerThread = 32;
+        int iterations = 50;
+        String sharedContextID = "concurrent-shared-app";
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        List<Future<?>> futures = new ArrayList<>();
+
+        createPolicyConfiguration(sharedContextID).commit();
+
+        try {
+            for (int t = 0; t < threadCount; t++) {
+                int thread = t;
+
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+
+                    for (int i = 0; i < iterations; i++) {
+                        for (int c = 0; c < contextsPerThread; c++) {
+                            String contextID = "concurrent-app-" + thread + "-" + c;
+                            PolicyConfiguration policyConfiguration = policyConfigurationFactory.getPolicyConfiguration(contextID, i % 10 == 0);
+
+                            assertFalse(policyConfigurationFactory.inService(contextID));
+
+                            policyConfiguration.addToRole("Role" + i, new WebResourcePermission("/resource" + i, "GET"));
+                            policyConfiguration.commit();
+
+                            // only this thread changes its own contexts
+                            assertTrue(policyConfigurationFactory.inService(contextID));
+                            assertSame(policyConfiguration, policyConfigurationFactory.getPolicyConfiguration(contextID, false));
+                            assertFalse(policyConfiguration.inService());
+
+                            policyConfiguration.commit();
+                        }
+
+                        // every thread replaces or reopens the shared context, a replacement losing the race is deleted
+                        try {
+                            if (i % 2 == 0) {
+                                policyConfigurationFactory.getReplacementPolicyConfiguration(sharedContextID).commit();
+                            } else {
+                                policyConfigurationFactory.getPolicyConfiguration(sharedContextID, false).commit();
+                            }
+                        } catch (PolicyContextException | UnsupportedOperationException expected) {
+                            // the configuration was replaced or deleted by another thread in the meantime
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                // a deadlock fails the test rather than hanging it
+                future.get(60, TimeUnit.SECONDS);
+            }
+
+            for (int t = 0; t < threadCount; t++) {
+                for (int c = 0; c < contextsPerThread; c++) {
+                    assertTrue(policyConfigurationFactory.inService("concurrent-app-" + t + "-" + c));
+                }
+            }
+
+            PolicyConfiguration sharedPolicyConfiguration = policyConfigurationFactory.getPolicyConfiguration(sharedContextID, false);
+
+            sharedPolicyConfiguration.commit();
+
+            assertTrue(policyConfigurationFactory.inService(sharedContextID));
+        } finally {
+            executor.shutdownNow();
+
+            for (int t = 0; t < threadCount; t++) {
+                for (int c = 0; c < contextsPerThread; c++) {
+                    policyConfigurationFactory.getPolicyConfiguration("concurrent-app-" + t + "-" + c, true).delete();
+                }
+            }
+
+            policyConfigurationFactory.getPolicyConfiguration(sharedContextID, true).delete();
+        }
+    }
+
     @Test
     public void testRemovePolicyConfiguration() throws Exception {
         final WebResourcePermission dynamicPermission1 = new WebResourcePermission("/webResource", "GET,PUT");
@@ -178,6 +985,182 @@ public class PolicyConfigurationTest extends AbstractAuthorizationTestCase {
         openPolicyConfiguration.addToUncheckedPolicy(dynamicPermission);
     }
 
+    @Test
+    public void testBulkLoading() throws Exception {
+        Permissions administratorPermissions = new Permissions();
+        Permissions uncheckedPermissions = new Permissions();
+
+        for (int i = 0; i < 10000; i++) {
+            administratorPermissions.add(new WebResourcePermission("/admin/resource" + i, "GET"));
+            uncheckedPermissions.add(new WebResourcePermission("/public/resource" + i, "GET"));
+        }
+
+        ElytronPolicyConfiguration policyConfiguration = createPolicyConfiguration("bulk-app", toConfigure -> {
+                    toConfigure.addToRole("Administrator", administratorPermissions);
+                    toConfigure.addToRole("Manager", new Permissions());
+                    toConfigure.addToUncheckedPolicy(uncheckedPermissions);
+                }
+        );
+
+        // empty collections do not define a role
+        assertFalse(policyConfiguration.getPerRolePermissions().containsKey("Manager"));
+
+        policyConfiguration.commit();
+
+        CompiledPolicy compiledPolicy = policyConfiguration.getCompiledPolicy();
+        RoleTable roleTable = compiledPolicy.getRoleTable();
+        long[] administrator = roleTable.newMask();
+
+        roleTable.addRole(administrator, "Administrator");
+
+        assertTrue(compiledPolicy.impliesRole(administrator, new WebResourcePermission("/admin/resource9999", "GET")));
+        assertTrue(compiledPolicy.impliesUnchecked(new WebResourcePermission("/public/resource9999", "GET")));
+
+        try {
+            policyConfiguration.addToRole("Administrator", administratorPermissions);
+            fail("Permissions can not be added when policy configuration is inService state.");
+        } catch (UnsupportedOperationException expected) {
+            // the configuration is in service
+        }
+
+        policyConfiguration.delete();
+    }
+
+    @Test
+    public void testPolicySnapshot() throws Exception {
+        ElytronPolicyConfigurationFactory policyConfigurationFactory = (ElytronPolicyConfigurationFactory) PolicyConfigurationFactory.getPolicyConfigurationFactory();
+        Path directory = Files.createTempDirectory("policy-snapshot");
+        Path snapshot = directory.resolve("snapshot-app.policy");
+
+        try {
+            PolicyConfiguration policyConfiguration = createPolicyConfiguration("snapshot-app", toConfigure -> {
+                        toConfigure.addToExcludedPolicy(new WebResourcePermission("/excluded", (String) null));
+                        toConfigure.addToUncheckedPolicy(new WebUserDataPermission("/public/*", "GET:CONFIDENTIAL"));
+                        toConfigure.addToRole("Administrator", new EJBMethodPermission("Bean", "remove,Local,java.lang.String"));
+                        toConfigure.addToRole("Administrator", new WebResourcePermission("/admin/*", "GET,POST"));
+                        toConfigure.addToRole("Manager", new WebRoleRefPermission("servlet", "Manager"));
+                    }
+            );
+
+            try {
+                policyConfigurationFactory.writeSnapshot("snapshot-app", "hash-1", snapshot);
+                fail("Snapshots can only be written when policy configuration is inService state.");
+            } catch (PolicyContextException expected) {
+                // the configuration is open
+            }
+
+            policyConfiguration.commit();
+            policyConfigurationFactory.writeSnapshot("snapshot-app", "hash-1", snapshot);
+
+            Map<String, PermissionCollection> rolePermissions = new HashMap<>(policyConfiguration.getPerRolePermissions());
+            PermissionCollection excludedPermissions = policyConfiguration.getExcludedPermissions();
+            PermissionCollection uncheckedPermissions = policyConfiguration.getUncheckedPermissions();
+
+            // another deployment or another policy context does not use the snapshot
+            assertNull(policyConfigurationFactory.loadPolicyConfiguration("snapshot-app", "hash-2", snapshot));
+            assertNull(policyConfigurationFactory.loadPolicyConfiguration("other-app", "hash-1", snapshot));
+            assertNull(policyConfigurationFactory.loadPolicyConfiguration("snapshot-app", "hash-1", directory.resolve("missing.policy")));
+            assertTrue(policyConfiguration.inService());
+
+            PolicyConfiguration loadedPolicyConfiguration = policyConfigurationFactory.loadPolicyConfiguration("snapshot-app", "hash-1", snapshot);
+
+            assertSame(policyConfiguration, loadedPolicyConfiguration);
+            assertFalse(loadedPolicyConfiguration.inService());
+            assertEquals(Collections.list(excludedPermissions.elements()), Collections.list(loadedPolicyConfiguration.getExcludedPermissions().elements()));
+            assertEquals(Collections.list(uncheckedPermissions.elements()), Collections.list(loadedPolicyConfiguration.getUncheckedPermissions().elements()));
+            assertEquals(rolePermissions.keySet(), loadedPolicyConfiguration.getPerRolePermissions().keySet());
+
+            for (Map.Entry<String, PermissionCollection> entry : rolePermissions.entrySet()) {
+                PermissionCollection loadedPermissions = loadedPolicyConfiguration.getPerRolePermissions().get(entry.getKey());
+
+                assertEquals(new HashSet<>(Collections.list(entry.getValue().elements())), new HashSet<>(Collections.list(loadedPermissions.elements())));
+            }
+
+            loadedPolicyConfiguration.commit();
+
+            // a class other than a JACC permission is rejected, even if the checksum matches
+            byte[] bytes = Files.readAllBytes(snapshot);
+            byte[] foreign = replace(bytes, EJBMethodPermission.class.getName(), "java.lang.management.ManagementPermission");
+            writeWithChecksum(snapshot, foreign);
+
+            assertNull(policyConfigurationFactory.loadPolicyConfiguration("snapshot-app", "hash-1", snapshot));
+            assertTrue(loadedPolicyConfiguration.inService());
+
+            // a corrupted length is ignored, even if the checksum matches
+            byte[] corrupted = bytes.clone();
+            ByteBuffer.wrap(corrupted).putInt(16, -1);
+            writeWithChecksum(snapshot, corrupted);
+
+            assertNull(policyConfigurationFactory.loadPolicyConfiguration("snapshot-app", "hash-1", snapshot));
+            assertTrue(loadedPolicyConfiguration.inService());
+
+            // a corrupted snapshot is ignored
+            bytes[bytes.length - 1] ^= 1;
+            Files.write(snapshot, bytes);
+
+            assertNull(policyConfigurationFactory.loadPolicyConfiguration("snapshot-app", "hash-1", snapshot));
+            assertTrue(loadedPolicyConfiguration.inService());
+
+            loadedPolicyConfiguration.delete();
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testPolicySnapshotOnlyHoldsJaccPermissions() throws Exception {
+        ElytronPolicyConfigurationFactory policyConfigurationFactory = (ElytronPolicyConfigurationFactory) PolicyConfigurationFactory.getPolicyConfigurationFactory();
+        Path directory = Files.createTempDirectory("policy-snapshot");
+        Path snapshot = directory.resolve("foreign-snapshot-app.policy");
+        PolicyConfiguration policyConfiguration = createPolicyConfiguration("foreign-snapshot-app", toConfigure -> {
+                    toConfigure.addToRole("Manager", new PropertyPermission("user.home", "read"));
+                }
+        );
+
+        try {
+            policyConfiguration.commit();
+
+            try {
+                policyConfigurationFactory.writeSnapshot("foreign-snapshot-app", "hash-1", snapshot);
+                fail("Only JACC permissions can be persisted");
+            } catch (PolicyContextException expected) {
+            }
+
+            assertFalse(Files.exists(snapshot));
+        } finally {
+            policyConfiguration.delete();
+            Files.delete(directory);
+        }
+    }
+
+    private static byte[] replace(byte[] bytes, String target, String replacement) {
+        byte[] targetBytes = target.getBytes(StandardCharsets.UTF_8);
+        byte[] replacementBytes = replacement.getBytes(StandardCharsets.UTF_8);
+        byte[] replaced = bytes.clone();
+
+        assertEquals(targetBytes.length, replacementBytes.length);
+
+        for (int i = 0; i + targetBytes.length <= replaced.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(replaced, i, i + targetBytes.length), targetBytes)) {
+                System.arraycopy(replacementBytes, 0, replaced, i, replacementBytes.length);
+                return replaced;
+            }
+        }
+
+        throw new AssertionError(target + " not found");
+    }
+
+    /**
+     * Writes the given snapshot content with a matching checksum, as a tampered snapshot would be.
+     */
+    private static void writeWithChecksum(Path snapshot, byte[] bytes) throws IOException {
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 16, bytes.length - 16);
+        ByteBuffer.wrap(bytes).putLong(8, checksum.getValue());
+        Files.write(snapshot, bytes);
+    }
+
     @Test
     public void testFailToAddUncheckedPermissionInServiceState() throws Exception {
         PolicyConfiguration policyConfiguration = createPolicyConfiguration("third-party-app");
@@ -420,4 +1403,13 @@ public class PolicyConfigurationTest extends AbstractAuthorizationTestCase {
             assertThat(e, new IsInstanceOf(UnsupportedOperationException.class));
         }
     }
+
+    private static void assertCurrentCompiledPolicyUnavailable() {
+        try {
+            ElytronPolicyConfigurationFactory.getCurrentCompiledPolicy();
+            fail("Expected a PolicyContextException for a configuration that is not in service.");
+        } catch (PolicyContextException expected) {
+            // the configuration is open or deleted
+        }
+    }
 }
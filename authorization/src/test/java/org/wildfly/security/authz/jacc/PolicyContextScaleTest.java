@@ -0,0 +1,446 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.security.CodeSource;
+import java.security.Permission;
+import java.security.Policy;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.jboss.logging.Logger;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.realm.SimpleRealmEntry;
+import org.wildfly.security.auth.server.RealmUnavailableException;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.SecurityIdentity;
+import org.wildfly.security.auth.server.ServerAuthenticationContext;
+import org.wildfly.security.authz.MapAttributes;
+import org.wildfly.security.authz.RoleDecoder;
+import org.wildfly.security.authz.RoleMapper;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import jakarta.security.jacc.PolicyConfiguration;
+import jakarta.security.jacc.PolicyConfigurationFactory;
+import jakarta.security.jacc.PolicyContext;
+import jakarta.security.jacc.WebResourcePermission;
+
+/**
+ * <p>Reproduces a server hosting many applications: thousands of policy contexts holding synthetic web and EJB policies are
+ * committed, then checked concurrently by callers holding a realistic mix of roles, and the throughput, the 99th percentile
+ * latency of a check and the heap used by the policy contexts are reported.
+ *
+ * <p>Applications are made of a web module and two EJB modules whose policy contexts are linked, as in an EAR. Most of the
+ * traffic goes to a fifth of the applications, and callers are security identities of a security domain, ranging from the
+ * anonymous identity without any role to administrators holding every role. Every decision is verified against the synthetic
+ * policy, so the test also checks that decisions stay correct under concurrency.
+ *
+ * <p>The test only runs when the {@code wildfly.security.jacc.scale} system property is {@code true}. It only requires a local
+ * JVM and can be scaled with the following system properties, for instance
+ * {@code mvn test -Dtest=PolicyContextScaleTest -Dwildfly.security.jacc.scale=true -Dwildfly.security.jacc.scale.contexts=6000 -Dwildfly.security.jacc.scale.duration=30000}:
+ * <ul>
+ *     <li>{@code wildfly.security.jacc.scale.contexts}: the number of policy contexts, {@value #DEFAULT_CONTEXT_COUNT} by default</li>
+ *     <li>{@code wildfly.security.jacc.scale.permissions}: the number of permissions granted per policy context,
+ *     {@value #DEFAULT_PERMISSION_COUNT} by default</li>
+ *     <li>{@code wildfly.security.jacc.scale.threads}: the number of threads checking permissions, the number of processors by default</li>
+ *     <li>{@code wildfly.security.jacc.scale.duration}: the time spent checking permissions, in milliseconds,
+ *     {@value #DEFAULT_DURATION} by default</li>
+ * </ul>
+ */
+public class PolicyContextScaleTest {
+
+    private static final Logger log = Logger.getLogger(PolicyContextScaleTest.class);
+
+    private static final String PROVIDER_PROPERTY = "jakarta.security.jacc.PolicyConfigurationFactory.provider";
+
+    private static final int DEFAULT_CONTEXT_COUNT = 1500;
+    private static final int DEFAULT_PERMISSION_COUNT = 40;
+    private static final int DEFAULT_DURATION = 2000;
+
+    private static final int CONTEXT_COUNT = Integer.getInteger("wildfly.security.jacc.scale.contexts", DEFAULT_CONTEXT_COUNT);
+    private static final int PERMISSION_COUNT = Integer.getInteger("wildfly.security.jacc.scale.permissions", DEFAULT_PERMISSION_COUNT);
+    private static final int THREAD_COUNT = Integer.getInteger("wildfly.security.jacc.scale.threads", Runtime.getRuntime().availableProcessors());
+    private static final int DURATION = Integer.getInteger("wildfly.security.jacc.scale.duration", DEFAULT_DURATION);
+
+    private static final String CONTEXT_PREFIX = "scale-app-";
+    private static final int MODULES_PER_APPLICATION = 3;
+    private static final int ROLE_COUNT = 8;
+
+    /**
+     * One check in this many is timed and kept to compute the latency percentiles.
+     */
+    private static final int LATENCY_SAMPLING = 8;
+    private static final int MAXIMUM_SAMPLES_PER_THREAD = 1 << 18;
+
+    private static final Policy DENY_ALL = new Policy() {
+        @Override
+        public boolean implies(ProtectionDomain domain, Permission permission) {
+            return false;
+        }
+    };
+
+    private static final ProtectionDomain CALLER_DOMAIN = new ProtectionDomain(new CodeSource(null, (java.security.cert.Certificate[]) null), null);
+
+    private static final List<PolicyConfiguration> policyConfigurations = new ArrayList<>();
+    private static Caller[] callers;
+    private static long heapFootprint;
+    private static boolean providerSet;
+    private static String previousProvider;
+
+    @BeforeClass
+    public static void onBeforeClass() throws Exception {
+        assumeTrue("Set wildfly.security.jacc.scale to true to run", Boolean.getBoolean("wildfly.security.jacc.scale"));
+
+        previousProvider = System.setProperty(PROVIDER_PROPERTY, ElytronPolicyConfigurationFactory.class.getName());
+        providerSet = true;
+
+        // JACC can't unregister a handler, a handler registered by this test is left in place, as other tests do
+        if (!PolicyContext.getHandlerKeys().contains(SecurityIdentityHandler.KEY)) {
+            PolicyContext.registerHandler(SecurityIdentityHandler.KEY, new SecurityIdentityHandler(), false);
+        }
+
+        PolicyConfigurationFactory policyConfigurationFactory = PolicyConfigurationFactory.getPolicyConfigurationFactory();
+        long heapBefore = getUsedHeap();
+
+        for (int i = 0; i < CONTEXT_COUNT; i++) {
+            PolicyConfiguration policyConfiguration = policyConfigurationFactory.getPolicyConfiguration(CONTEXT_PREFIX + i, true);
+
+            if (isWebModule(i)) {
+                policyConfiguration.addToExcludedPolicy(new WebResourcePermission("/excluded/*", ""));
+                policyConfiguration.addToUncheckedPolicy(new WebResourcePermission("/public/*", "GET"));
+
+                for (int j = 0; j < PERMISSION_COUNT; j++) {
+                    policyConfiguration.addToRole(roleName(j % ROLE_COUNT), webPermission(j));
+                }
+            } else {
+                policyConfiguration.addToUncheckedPolicy(new EJBMethodPermission("PublicBean", null));
+
+                for (int j = 0; j < PERMISSION_COUNT; j++) {
+                    policyConfiguration.addToRole(roleName(j % ROLE_COUNT), ejbPermission(j));
+                }
+            }
+
+            if (i % MODULES_PER_APPLICATION != 0) {
+                policyConfigurations.get(i - i % MODULES_PER_APPLICATION).linkConfiguration(policyConfiguration);
+            }
+
+            policyConfigurations.add(policyConfiguration);
+        }
+
+        for (PolicyConfiguration policyConfiguration : policyConfigurations) {
+            policyConfiguration.commit();
+        }
+
+        heapFootprint = getUsedHeap() - heapBefore;
+
+        String[][] callerRoles = {
+                {roleName(0)},
+                {roleName(1)},
+                {roleName(0), roleName(2), roleName(3)},
+                {roleName(4), roleName(5), "UnknownRole"},
+                IntStream.range(0, ROLE_COUNT).mapToObj(PolicyContextScaleTest::roleName).toArray(String[]::new)
+        };
+        SecurityDomain securityDomain = createSecurityDomain(callerRoles);
+
+        callers = new Caller[] {
+                // weights roughly follow the population of a business application
+                new Caller(10, securityDomain.getAnonymousSecurityIdentity()),
+                new Caller(45, authenticate(securityDomain, 0), callerRoles[0]),
+                new Caller(15, authenticate(securityDomain, 1), callerRoles[1]),
+                new Caller(15, authenticate(securityDomain, 2), callerRoles[2]),
+                new Caller(10, authenticate(securityDomain, 3), callerRoles[3]),
+                new Caller(5, authenticate(securityDomain, 4), callerRoles[4])
+        };
+    }
+
+    @AfterClass
+    public static void onAfterClass() throws Exception {
+        for (PolicyConfiguration policyConfiguration : policyConfigurations) {
+            policyConfiguration.delete();
+        }
+
+        policyConfigurations.clear();
+        callers = null;
+        PolicyContext.setContextID(null);
+
+        if (providerSet) {
+            if (previousProvider == null) {
+                System.clearProperty(PROVIDER_PROPERTY);
+            } else {
+                System.setProperty(PROVIDER_PROPERTY, previousProvider);
+            }
+
+            providerSet = false;
+        }
+    }
+
+    @Test
+    public void testConcurrentChecksAcrossPolicyContexts() throws Exception {
+        JaccDelegatingPolicy policy = new JaccDelegatingPolicy(DENY_ALL);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT, task -> new Thread(task, "policy-context-scale-worker"));
+        List<Future<Worker>> futures = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION);
+
+        try {
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executor.submit(() -> new Worker(policy).run(deadline)));
+            }
+
+            long checkCount = 0;
+            long wrongDecisionCount = 0;
+            List<long[]> samples = new ArrayList<>();
+
+            for (Future<Worker> future : futures) {
+                Worker worker = future.get();
+
+                checkCount += worker.checkCount;
+                wrongDecisionCount += worker.wrongDecisionCount;
+                samples.add(Arrays.copyOf(worker.samples, worker.sampleCount));
+            }
+
+            long[] latencies = samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+
+            log.infof("%d policy contexts with %d permissions each, %d threads for %d ms", CONTEXT_COUNT, PERMISSION_COUNT,
+                    THREAD_COUNT, DURATION);
+            log.infof("throughput: %.0f checks/s", checkCount * 1000.0 / DURATION);
+            log.infof("latency: p50 %d ns, p99 %d ns, p99.9 %d ns", percentile(latencies, 0.5), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999));
+            log.infof("heap footprint: %d KiB, %d bytes per policy context", heapFootprint / 1024, heapFootprint / CONTEXT_COUNT);
+
+            assertTrue("No permission checked", checkCount > 0);
+            assertEquals("Wrong decisions", 0, wrongDecisionCount);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SecurityDomain createSecurityDomain(String[][] callerRoles) {
+        SecurityDomain.Builder builder = SecurityDomain.builder();
+        SimpleMapBackedSecurityRealm realm = new SimpleMapBackedSecurityRealm();
+        Map<String, SimpleRealmEntry> identities = new HashMap<>();
+
+        for (int i = 0; i < callerRoles.length; i++) {
+            MapAttributes attributes = new MapAttributes();
+
+            attributes.addAll(RoleDecoder.KEY_ROLES, Arrays.asList(callerRoles[i]));
+            identities.put(callerName(i), new SimpleRealmEntry(Collections.emptyList(), attributes));
+        }
+
+        realm.setIdentityMap(identities);
+
+        builder.setDefaultRealmName("default");
+        builder.addRealm("default", realm).setRoleMapper(RoleMapper.IDENTITY_ROLE_MAPPER).build();
+
+        return builder.build();
+    }
+
+    private static SecurityIdentity authenticate(SecurityDomain securityDomain, int callerIndex) throws RealmUnavailableException {
+        ServerAuthenticationContext authenticationContext = securityDomain.createNewAuthenticationContext();
+
+        authenticationContext.setAuthenticationName(callerName(callerIndex));
+        authenticationContext.succeed();
+
+        return authenticationContext.getAuthorizedIdentity();
+    }
+
+    private static String callerName(int index) {
+        return "caller" + index;
+    }
+
+    private static boolean isWebModule(int contextIndex) {
+        return contextIndex % MODULES_PER_APPLICATION == 0;
+    }
+
+    private static String roleName(int index) {
+        return "Role" + index;
+    }
+
+    private static WebResourcePermission webPermission(int index) {
+        return new WebResourcePermission("/resource" + index + "/*", "GET,POST");
+    }
+
+    private static EJBMethodPermission ejbPermission(int index) {
+        return new EJBMethodPermission("Bean" + index % 10, "method" + index + ",Local,java.lang.String");
+    }
+
+    private static long percentile(long[] sortedValues, double percentile) {
+        return sortedValues.length == 0 ? 0 : sortedValues[(int) Math.min(sortedValues.length - 1, (long) (sortedValues.length * percentile))];
+    }
+
+    private static long getUsedHeap() throws InterruptedException {
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+        // a full collection is only requested, so give the collector a few chances to settle
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        return memoryMXBean.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * A kind of caller, the security identity holding the given roles, and the share of the traffic it sends.
+     */
+    private static final class Caller {
+
+        private final int weight;
+        private final SecurityIdentity identity;
+        private final boolean[] roles = new boolean[ROLE_COUNT];
+
+        Caller(int weight, SecurityIdentity identity, String... roleNames) {
+            for (String roleName : roleNames) {
+                for (int j = 0; j < ROLE_COUNT; j++) {
+                    if (roleName(j).equals(roleName)) {
+                        this.roles[j] = true;
+                    }
+                }
+            }
+
+            this.weight = weight;
+            this.identity = identity;
+        }
+    }
+
+    /**
+     * A thread sending requests to random applications, as random callers, until the deadline.
+     */
+    private static final class Worker {
+
+        private final JaccDelegatingPolicy policy;
+        private final long[] samples = new long[MAXIMUM_SAMPLES_PER_THREAD];
+        private int sampleCount;
+        private long checkCount;
+        private long wrongDecisionCount;
+
+        Worker(JaccDelegatingPolicy policy) {
+            this.policy = policy;
+        }
+
+        Worker run(long deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int totalWeight = Arrays.stream(callers).mapToInt(caller -> caller.weight).sum();
+
+            try {
+                while (System.nanoTime() < deadline) {
+                    int contextIndex = nextContextIndex(random);
+                    Caller caller = nextCaller(random, totalWeight);
+
+                    PolicyContext.setContextID(CONTEXT_PREFIX + contextIndex);
+
+                    // a request usually checks a few permissions of the same policy context
+                    caller.identity.runAs(() -> {
+                        for (int i = 0; i < 4; i++) {
+                            check(random, contextIndex, caller);
+                        }
+                    });
+                }
+            } finally {
+                PolicyContext.setContextID(null);
+            }
+
+            return this;
+        }
+
+        private void check(ThreadLocalRandom random, int contextIndex, Caller caller) {
+            int kind = random.nextInt(100);
+            int index = random.nextInt(PERMISSION_COUNT);
+            Permission permission;
+            boolean expected;
+
+            if (kind < 80) {
+                // a protected resource or method, sometimes one the policy context doesn't know about
+                int resource = kind < 75 ? index : PERMISSION_COUNT + index;
+
+                permission = isWebModule(contextIndex) ? new WebResourcePermission("/resource" + resource + "/page", "GET")
+                        : new EJBMethodPermission("Bean" + resource % 10, "method" + resource + ",Local,java.lang.String");
+                expected = resource < PERMISSION_COUNT && caller.roles[resource % ROLE_COUNT];
+            } else if (kind < 90) {
+                permission = isWebModule(contextIndex) ? new WebResourcePermission("/public/page" + index, "GET")
+                        : new EJBMethodPermission("PublicBean", "method" + index + ",Local,java.lang.String");
+                expected = true;
+            } else {
+                permission = isWebModule(contextIndex) ? new WebResourcePermission("/excluded/page" + index, "GET")
+                        : new EJBMethodPermission("OtherBean", "method" + index + ",Local,java.lang.String");
+                expected = false;
+            }
+
+            boolean granted;
+
+            if (this.checkCount % LATENCY_SAMPLING == 0 && this.sampleCount < this.samples.length) {
+                long startTime = System.nanoTime();
+
+                granted = this.policy.implies(CALLER_DOMAIN, permission);
+                this.samples[this.sampleCount++] = System.nanoTime() - startTime;
+            } else {
+                granted = this.policy.implies(CALLER_DOMAIN, permission);
+            }
+
+            if (granted != expected) {
+                this.wrongDecisionCount++;
+            }
+
+            this.checkCount++;
+        }
+
+        private static int nextContextIndex(ThreadLocalRandom random) {
+            // most of the traffic goes to a fifth of the applications
+            int applicationCount = (CONTEXT_COUNT + MODULES_PER_APPLICATION - 1) / MODULES_PER_APPLICATION;
+            int hotApplicationCount = Math.max(1, applicationCount / 5);
+            int application = random.nextInt(100) < 80 ? random.nextInt(hotApplicationCount) : random.nextInt(applicationCount);
+            int contextIndex = application * MODULES_PER_APPLICATION + random.nextInt(MODULES_PER_APPLICATION);
+
+            return Math.min(contextIndex, CONTEXT_COUNT - 1);
+        }
+
+        private static Caller nextCaller(ThreadLocalRandom random, int totalWeight) {
+            int value = random.nextInt(totalWeight);
+
+            for (Caller caller : callers) {
+                value -= caller.weight;
+
+                if (value < 0) {
+                    return caller;
+                }
+            }
+
+            return callers[callers.length - 1];
+        }
+    }
+}
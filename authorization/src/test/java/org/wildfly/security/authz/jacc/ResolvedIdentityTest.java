@@ -0,0 +1,86 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.SecurityIdentity;
+
+/**
+ * Tests that the current identity is resolved once per scope of {@link ResolvedIdentity}.
+ */
+public class ResolvedIdentityTest {
+
+    private final SecurityDomain securityDomain = createSecurityDomain();
+
+    @Test
+    public void testIdentityResolvedOncePerScope() {
+        SecurityIdentity alice = this.securityDomain.createAdHocIdentity("alice");
+        SecurityIdentity bob = this.securityDomain.createAdHocIdentity("bob");
+
+        alice.runAs(() -> {
+            ResolvedIdentity.enter();
+
+            try {
+                assertSame(alice, ResolvedIdentity.get());
+
+                ResolvedIdentity.enter();
+
+                try {
+                    // nested scopes and later lookups reuse the identity resolved first
+                    bob.runAs(() -> assertSame(alice, ResolvedIdentity.get()));
+                } finally {
+                    ResolvedIdentity.exit();
+                }
+
+                bob.runAs(() -> assertSame(alice, ResolvedIdentity.get()));
+            } finally {
+                ResolvedIdentity.exit();
+            }
+
+            // outside of a scope every lookup resolves the current identity
+            assertSame(alice, ResolvedIdentity.get());
+            bob.runAs(() -> assertSame(bob, ResolvedIdentity.get()));
+        });
+    }
+
+    @Test
+    public void testNoCurrentSecurityDomain() {
+        ResolvedIdentity.enter();
+
+        try {
+            assertNull(ResolvedIdentity.get());
+        } finally {
+            ResolvedIdentity.exit();
+        }
+    }
+
+    private static SecurityDomain createSecurityDomain() {
+        SecurityDomain.Builder builder = SecurityDomain.builder();
+
+        builder.addRealm("default", new SimpleMapBackedSecurityRealm()).build();
+        builder.setDefaultRealmName("default");
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import javax.security.auth.Subject;
+
+import org.junit.Test;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.SecurityIdentity;
+
+/**
+ * Tests that the {@link Subject} derived from a {@link SecurityIdentity} is shared by every lookup of the identity, and
+ * does not keep the identity reachable.
+ */
+public class SubjectCacheTest {
+
+    private final SecurityDomain securityDomain = createSecurityDomain();
+
+    @Test
+    public void testSubjectSharedPerIdentity() {
+        SecurityIdentity identity = this.securityDomain.createAdHocIdentity("alice");
+        Subject subject = SubjectCache.getSubject(identity);
+
+        assertSame(subject, SubjectCache.getSubject(identity));
+        assertTrue(subject.isReadOnly());
+        assertTrue(subject.getPrincipals().contains(identity.getPrincipal()));
+        assertTrue(subject.getPrivateCredentials(SecurityIdentity.class).contains(identity));
+    }
+
+    @Test
+    public void testSubjectNotSharedBetweenIdentities() {
+        SecurityIdentity identity = this.securityDomain.createAdHocIdentity("alice");
+        SecurityIdentity otherIdentity = this.securityDomain.createAdHocIdentity("alice");
+
+        assertNotSame(SubjectCache.getSubject(identity), SubjectCache.getSubject(otherIdentity));
+    }
+
+    @Test
+    public void testIdentityCollectedWithSubject() throws Exception {
+        SecurityIdentity identity = this.securityDomain.createAdHocIdentity("alice");
+        Subject subject = SubjectCache.getSubject(identity);
+        WeakReference<SecurityIdentity> identityReference = new WeakReference<>(identity);
+
+        assertTrue(subject.getPrivateCredentials(SecurityIdentity.class).contains(identity));
+
+        identity = null;
+        subject = null;
+
+        assertTrue("identity still reachable from its cached subject", AbstractAuthorizationTestCase.awaitCollected(identityReference));
+    }
+
+    @Test
+    public void testEntryRemovedWithIdentity() throws Exception {
+        WeakKeyCache<SecurityIdentity, Subject> subjects = WeakKeyCache.weakValues();
+        SecurityIdentity identity = this.securityDomain.createAdHocIdentity("alice");
+        Subject subject = subjects.computeIfAbsent(identity, SubjectUtil::fromSecurityIdentity);
+        WeakReference<SecurityIdentity> identityReference = new WeakReference<>(identity);
+
+        assertSame(subject, subjects.get(identity));
+        assertEquals(1, subjects.size());
+
+        identity = null;
+        subject = null;
+
+        assertTrue(AbstractAuthorizationTestCase.awaitCollected(identityReference));
+
+        // the collected key is enqueued shortly after being cleared
+        for (int i = 0; i < 100 && subjects.size() > 0; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(0, subjects.size());
+    }
+
+    private static SecurityDomain createSecurityDomain() {
+        SecurityDomain.Builder builder = SecurityDomain.builder();
+
+        builder.addRealm("default", new SimpleMapBackedSecurityRealm()).build();
+        builder.setDefaultRealmName("default");
+
+        return builder.build();
+    }
+}
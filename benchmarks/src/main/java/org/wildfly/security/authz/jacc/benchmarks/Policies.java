@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc.benchmarks;
+
+import java.security.CodeSource;
+import java.security.Permission;
+import java.security.Policy;
+import java.security.Principal;
+import java.security.ProtectionDomain;
+
+import org.wildfly.security.authz.jacc.ElytronPolicyConfigurationFactory;
+import org.wildfly.security.authz.jacc.ElytronPolicyContextHandlerFactory;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import jakarta.security.jacc.PolicyConfigurationFactory;
+import jakarta.security.jacc.PolicyContext;
+import jakarta.security.jacc.PolicyContextException;
+import jakarta.security.jacc.PolicyContextHandler;
+import jakarta.security.jacc.WebResourcePermission;
+
+/**
+ * Utility methods shared by the benchmarks to install and populate Elytron's JACC implementation.
+ */
+final class Policies {
+
+    /**
+     * A policy denying every permission, used as the delegate of the JACC policy so that the cost of a denial only includes
+     * the evaluation of the policy configuration.
+     */
+    static final Policy DENY_ALL = new Policy() {
+        @Override
+        public boolean implies(ProtectionDomain domain, Permission permission) {
+            return false;
+        }
+    };
+
+    private static final String FACTORY_PROVIDER_PROPERTY = "jakarta.security.jacc.PolicyConfigurationFactory.provider";
+
+    private static String previousProvider;
+    private static boolean providerSet;
+
+    private Policies() {
+    }
+
+    static PolicyConfigurationFactory getPolicyConfigurationFactory() throws ClassNotFoundException, PolicyContextException {
+        synchronized (Policies.class) {
+            if (!providerSet) {
+                previousProvider = System.setProperty(FACTORY_PROVIDER_PROPERTY, ElytronPolicyConfigurationFactory.class.getName());
+                providerSet = true;
+            }
+        }
+
+        return PolicyConfigurationFactory.getPolicyConfigurationFactory();
+    }
+
+    /**
+     * Restore the policy configuration factory provider set before {@link #getPolicyConfigurationFactory()} was called.
+     */
+    static synchronized void restorePolicyConfigurationFactoryProvider() {
+        if (!providerSet) {
+            return;
+        }
+
+        if (previousProvider == null) {
+            System.clearProperty(FACTORY_PROVIDER_PROPERTY);
+        } else {
+            System.setProperty(FACTORY_PROVIDER_PROPERTY, previousProvider);
+        }
+
+        previousProvider = null;
+        providerSet = false;
+    }
+
+    /**
+     * Register the policy context handlers of Elytron, as the application server does.
+     */
+    static void registerPolicyContextHandlers() throws PolicyContextException {
+        for (PolicyContextHandler handler : ElytronPolicyContextHandlerFactory.getPolicyContextHandlers()) {
+            for (String key : handler.getKeys()) {
+                PolicyContext.registerHandler(key, handler, true);
+            }
+        }
+    }
+
+    /**
+     * Create a protection domain whose principals are the given roles. No security identity is associated with the benchmark
+     * threads, so the JACC policy obtains the roles of the caller from these principals.
+     */
+    static ProtectionDomain createProtectionDomain(String... roleNames) {
+        Principal[] principals = new Principal[roleNames.length];
+
+        for (int i = 0; i < roleNames.length; i++) {
+            String roleName = roleNames[i];
+            principals[i] = () -> roleName;
+        }
+
+        return new ProtectionDomain(new CodeSource(null, (java.security.cert.Certificate[]) null), null, null, principals);
+    }
+
+    static String roleName(int index) {
+        return "role" + index;
+    }
+
+    static WebResourcePermission webPermission(String prefix, int index) {
+        return new WebResourcePermission("/" + prefix + "/resource" + index, "GET,POST");
+    }
+
+    static EJBMethodPermission ejbPermission(String prefix, int index) {
+        return new EJBMethodPermission(prefix + "Bean" + index % 100, "method" + index + ",Local,java.lang.String");
+    }
+}
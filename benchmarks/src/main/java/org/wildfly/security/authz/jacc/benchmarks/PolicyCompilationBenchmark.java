@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.security.authz.jacc.ElytronPolicyConfigurationFactory;
+
+import jakarta.security.jacc.PolicyConfiguration;
+import jakarta.security.jacc.PolicyContextException;
+
+/**
+ * <p>Measures the time taken to commit a large policy configuration, which compiles its permissions into the indexes used
+ * to check them.
+ *
+ * <p>{@code parallelism} is the number of threads of the pool the configuration is compiled on, {@code 0} compiling it in
+ * the committing thread, so that the commit time can be compared as the number of cores grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyCompilationBenchmark {
+
+    private static final String CONTEXT_ID = "compilation-benchmark";
+
+    @Param({ "100000", "1000000" })
+    private int permissionCount;
+
+    @Param({ "10" })
+    private int roleCount;
+
+    @Param({ "0", "1", "2", "4", "8" })
+    private int parallelism;
+
+    private ElytronPolicyConfigurationFactory policyConfigurationFactory;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws Exception {
+        this.policyConfigurationFactory = (ElytronPolicyConfigurationFactory) Policies.getPolicyConfigurationFactory();
+        this.pool = this.parallelism == 0 ? null : new ForkJoinPool(this.parallelism);
+        ElytronPolicyConfigurationFactory.setParallelCompilation(this.pool, 0);
+
+        PolicyConfiguration policyConfiguration = this.policyConfigurationFactory.getPolicyConfiguration(CONTEXT_ID, true);
+
+        for (int i = 0; i < this.permissionCount; i++) {
+            // one permission in ten is excluded or unchecked, the others are granted to roles
+            switch (i % 10) {
+                case 0:
+                    policyConfiguration.addToExcludedPolicy(Policies.webPermission("excluded", i));
+                    break;
+                case 1:
+                    policyConfiguration.addToUncheckedPolicy(Policies.ejbPermission("Unchecked", i));
+                    break;
+                default:
+                    policyConfiguration.addToRole(Policies.roleName(i % this.roleCount),
+                            i % 2 == 0 ? Policies.webPermission("app", i) : Policies.ejbPermission("App", i));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws PolicyContextException {
+        this.policyConfigurationFactory.getPolicyConfiguration(CONTEXT_ID, true).delete();
+        ElytronPolicyConfigurationFactory.setParallelCompilation(ForkJoinPool.commonPool(),
+                ElytronPolicyConfigurationFactory.DEFAULT_PARALLEL_COMPILATION_THRESHOLD);
+
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public PolicyConfiguration commit() throws PolicyContextException {
+        // reopening a configuration keeps its permissions, so each invocation compiles the same permissions again
+        PolicyConfiguration policyConfiguration = this.policyConfigurationFactory.getPolicyConfiguration(CONTEXT_ID, false);
+
+        policyConfiguration.commit();
+
+        return policyConfiguration;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc.benchmarks;
+
+import java.security.Permission;
+import java.security.ProtectionDomain;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.security.authz.jacc.JaccDelegatingPolicy;
+
+import jakarta.security.jacc.PolicyConfiguration;
+import jakarta.security.jacc.PolicyContext;
+import jakarta.security.jacc.PolicyContextException;
+
+/**
+ * <p>Measures the time taken by {@link JaccDelegatingPolicy#implies(ProtectionDomain, Permission)} to check web resource and
+ * EJB method permissions against a policy context in service.
+ *
+ * <p>The policy context grants {@code permissionCount} permissions of the given type, spread over {@code roleCount} roles.
+ * The caller is a member of the first role only: {@code granted} checks permissions granted to that role, while
+ * {@code denied} checks permissions missing from the policy context, which are denied by the delegate policy after the
+ * whole policy context has been searched. {@code decisionCache} turns the cache of authorization decisions on and off, so
+ * that the evaluation of the policy configuration itself can be measured.
+ *
+ * <p>Each benchmark is run by a single thread and by as many threads as there are processors, to expose contention on the
+ * shared state of the policy. Other thread counts can be measured with the {@code -t} option of JMH.
+ *
+ * <p>A check answered from the decision cache is not expected to allocate once compiled: run with {@code -prof gc} and
+ * {@code -p decisionCache=true -p outcome=granted}, {@code gc.alloc.rate.norm} should stay close to 0 bytes per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyEvaluationBenchmark {
+
+    private static final String CONTEXT_ID = "evaluation-benchmark";
+
+    /**
+     * The number of permissions checked in turn by each thread, so that a benchmark does not keep checking the same
+     * permission.
+     */
+    private static final int CHECKED_PERMISSION_COUNT = 512;
+
+    @Param({ "web", "ejb" })
+    private String permissionType;
+
+    @Param({ "10", "1000", "100000" })
+    private int permissionCount;
+
+    @Param({ "1", "10", "100" })
+    private int roleCount;
+
+    @Param({ "granted", "denied" })
+    private String outcome;
+
+    @Param({ "true", "false" })
+    private boolean decisionCache;
+
+    private PolicyConfiguration policyConfiguration;
+    private JaccDelegatingPolicy policy;
+    private ProtectionDomain domain;
+    private Permission[] permissions;
+
+    @Setup
+    public void setup() throws Exception {
+        Policies.registerPolicyContextHandlers();
+
+        this.policyConfiguration = Policies.getPolicyConfigurationFactory().getPolicyConfiguration(CONTEXT_ID, true);
+
+        for (int i = 0; i < this.permissionCount; i++) {
+            this.policyConfiguration.addToRole(Policies.roleName(i % this.roleCount), createPermission("app", i));
+        }
+
+        this.policyConfiguration.commit();
+
+        this.policy = this.decisionCache ? new JaccDelegatingPolicy(Policies.DENY_ALL) : new JaccDelegatingPolicy(Policies.DENY_ALL, 0);
+        this.domain = Policies.createProtectionDomain(Policies.roleName(0));
+        this.permissions = new Permission[CHECKED_PERMISSION_COUNT];
+
+        // the caller is a member of the first role, which is granted one permission in roleCount
+        int grantedCount = (this.permissionCount + this.roleCount - 1) / this.roleCount;
+
+        for (int i = 0; i < this.permissions.length; i++) {
+            int index = i % grantedCount * this.roleCount;
+
+            // new instances, as containers create the permission to check on each request
+            this.permissions[i] = "granted".equals(this.outcome) ? createPermission("app", index) : createPermission("other", index);
+        }
+    }
+
+    /**
+     * Deletes the policy context and releases the policy, so that the next trial starts from an empty factory. The policy
+     * context handlers registered by {@link #setup()} are stateless and replaced by the next registration, Jakarta
+     * Authorization offering no way to unregister them.
+     */
+    @TearDown
+    public void tearDown() throws PolicyContextException {
+        this.policyConfiguration.delete();
+        this.policyConfiguration = null;
+        this.policy.refresh();
+        this.policy = null;
+        Policies.restorePolicyConfigurationFactoryProvider();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean singleThread(Caller caller) {
+        return this.policy.implies(this.domain, this.permissions[caller.next()]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean allProcessors(Caller caller) {
+        return this.policy.implies(this.domain, this.permissions[caller.next()]);
+    }
+
+    private Permission createPermission(String prefix, int index) {
+        return "web".equals(this.permissionType) ? Policies.webPermission(prefix, index) : Policies.ejbPermission(prefix, index);
+    }
+
+    /**
+     * The state of a thread checking permissions: the policy context identifier is associated with the thread, as the
+     * container does for the duration of a request.
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+
+        private int index;
+
+        @Setup
+        public void setup() {
+            PolicyContext.setContextID(CONTEXT_ID);
+        }
+
+        @TearDown
+        public void tearDown() {
+            PolicyContext.setContextID(null);
+        }
+
+        int next() {
+            int next = this.index;
+            this.index = (next + 1) % CHECKED_PERMISSION_COUNT;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz.jacc.benchmarks;
+
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.security.jacc.PolicyConfiguration;
+import jakarta.security.jacc.PolicyConfigurationFactory;
+import jakarta.security.jacc.PolicyContextException;
+
+/**
+ * <p>Measures the time taken to deploy a policy context: loading its permissions into a new policy configuration and
+ * committing it.
+ *
+ * <p>The {@code perPermission} benchmark loads the permissions one at a time, as containers translating deployment
+ * descriptors usually do, while the {@code bulk} benchmark loads the permissions of each role, the excluded and the unchecked
+ * permissions as a whole {@link PermissionCollection}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyLoadingBenchmark {
+
+    private static final String CONTEXT_ID = "loading-benchmark";
+
+    @Param({ "10000", "100000" })
+    private int permissionCount;
+
+    @Param({ "10" })
+    private int roleCount;
+
+    private PolicyConfigurationFactory policyConfigurationFactory;
+    private List<PermissionCollection> rolePermissions;
+    private PermissionCollection excludedPermissions;
+    private PermissionCollection uncheckedPermissions;
+
+    @Setup
+    public void setup() throws Exception {
+        this.policyConfigurationFactory = Policies.getPolicyConfigurationFactory();
+        this.rolePermissions = new ArrayList<>(this.roleCount);
+
+        for (int i = 0; i < this.roleCount; i++) {
+            this.rolePermissions.add(new Permissions());
+        }
+
+        this.excludedPermissions = new Permissions();
+        this.uncheckedPermissions = new Permissions();
+
+        for (int i = 0; i < this.permissionCount; i++) {
+            PermissionCollection permissions;
+
+            // one permission in ten is excluded or unchecked, the others are granted to roles
+            switch (i % 10) {
+                case 0:
+                    permissions = this.excludedPermissions;
+                    break;
+                case 1:
+                    permissions = this.uncheckedPermissions;
+                    break;
+                default:
+                    permissions = this.rolePermissions.get(i % this.roleCount);
+            }
+
+            permissions.add(createPermission(i));
+        }
+    }
+
+    @Benchmark
+    public PolicyConfiguration perPermission() throws PolicyContextException {
+        PolicyConfiguration policyConfiguration = this.policyConfigurationFactory.getPolicyConfiguration(CONTEXT_ID, true);
+
+        for (int i = 0; i < this.rolePermissions.size(); i++) {
+            String roleName = Policies.roleName(i);
+
+            for (Permission permission : list(this.rolePermissions.get(i))) {
+                policyConfiguration.addToRole(roleName, permission);
+            }
+        }
+
+        for (Permission permission : list(this.excludedPermissions)) {
+            policyConfiguration.addToExcludedPolicy(permission);
+        }
+
+        for (Permission permission : list(this.uncheckedPermissions)) {
+            policyConfiguration.addToUncheckedPolicy(permission);
+        }
+
+        policyConfiguration.commit();
+
+        return policyConfiguration;
+    }
+
+    @Benchmark
+    public PolicyConfiguration bulk() throws PolicyContextException {
+        PolicyConfiguration policyConfiguration = this.policyConfigurationFactory.getPolicyConfiguration(CONTEXT_ID, true);
+
+        for (int i = 0; i < this.rolePermissions.size(); i++) {
+            policyConfiguration.addToRole(Policies.roleName(i), this.rolePermissions.get(i));
+        }
+
+        policyConfiguration.addToExcludedPolicy(this.excludedPermissions);
+        policyConfiguration.addToUncheckedPolicy(this.uncheckedPermissions);
+        policyConfiguration.commit();
+
+        return policyConfiguration;
+    }
+
+    private static Permission createPermission(int index) {
+        return index % 2 == 0 ? Policies.webPermission("app", index) : Policies.ejbPermission("App", index);
+    }
+
+    private static List<Permission> list(PermissionCollection permissions) {
+        return Collections.list(permissions.elements());
+    }
+}